@@ -23,6 +23,10 @@ package com.mathworks.polyspace.jenkins;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
 import java.util.Collections;
 
@@ -44,6 +48,7 @@ import com.mathworks.polyspace.jenkins.config.PolyspaceAccessConfig;
 import com.mathworks.polyspace.jenkins.config.PolyspaceBinConfig;
 import com.mathworks.polyspace.jenkins.constants.PolyspaceConstants;
 import com.mathworks.polyspace.jenkins.utils.PolyspaceConfigUtils;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceScratchArea;
 
 import hudson.EnvVars;
 import hudson.Extension;
@@ -55,11 +60,13 @@ import hudson.model.Item;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.security.ACL;
+import hudson.slaves.WorkspaceList;
 import hudson.tasks.BuildWrapperDescriptor;
 import hudson.util.CopyOnWriteList;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
 import jenkins.tasks.SimpleBuildWrapper;
 import net.sf.json.JSONObject;
 
@@ -142,7 +149,11 @@ public class PolyspaceBuildWrapper extends SimpleBuildWrapper {
         context.env(PolyspaceConstants.POLYSPACE_BIN, "POLYSPACE_BIN_IS_UNSET");
       }
       context.env("PATH", path);
+      context.env("ps_helper", getHelperCommand(initialEnvironment));
+    }
 
+    private String getHelperCommand(final EnvVars initialEnvironment) {
+      String jenkins_home = initialEnvironment.get("JENKINS_HOME");
       String polyspaceJar = jenkins_home + File.separator + "plugins" + File.separator + "mathworks-polyspace" + File.separator + "WEB-INF" + File.separator + "lib" + File.separator + "mathworks-polyspace.jar";
       // the path to the jar may have some space
       if (Functions.isWindows()) {
@@ -150,7 +161,75 @@ public class PolyspaceBuildWrapper extends SimpleBuildWrapper {
       } else {
         polyspaceJar = polyspaceJar.replace(" ", "\\ ");
       }
-      context.env("ps_helper", "java -cp " +  polyspaceJar + " com.mathworks.polyspace.jenkins.PolyspaceHelpers");
+      return "java -cp " +  polyspaceJar + " com.mathworks.polyspace.jenkins.PolyspaceHelpers";
+    }
+
+    // Update ps_helper server variables
+    // - ps_helper_socket: socket of the server, removed at the end of the build to stop the server
+    // - ps_helper_server: starts the server, for instance with "$ps_helper_server &"
+    // - ps_helper_client: runs a ps_helper command in the server, or directly if the server is not started
+    private void update_server(Context context, final Run<?, ?> build, final FilePath workspace, final EnvVars initialEnvironment) throws IOException, InterruptedException {
+      FilePath tempDir = WorkspaceList.tempDir(workspace);
+      String socket = ((tempDir != null) ? tempDir : workspace).child("ps_helper-" + build.getNumber() + ".sock").getRemote();
+      String privateDir = null;
+      if (!PolyspaceHelpersServer.isSocketPathValid(socket)) {
+        // too long for a Unix domain socket: in a directory of the temporary folder of the agent, that only the user of the agent can use
+        privateDir = workspace.act(new PrivateTempDirCallable());
+        socket = new FilePath(workspace.getChannel(), privateDir).child("ps_helper-" + build.getNumber() + ".sock").getRemote();
+      }
+      context.setDisposer(new ServerDisposer(socket, privateDir));
+      context.env(PolyspaceConstants.PS_HELPER_SOCKET, socket);
+      // the path to the socket may have some space
+      if (Functions.isWindows()) {
+        socket = "\"" + socket + "\"";
+      } else {
+        socket = socket.replace(" ", "\\ ");
+      }
+      String helper = getHelperCommand(initialEnvironment);
+      context.env(PolyspaceConstants.PS_HELPER_SERVER, helper + " -server " + socket);
+      context.env(PolyspaceConstants.PS_HELPER_CLIENT, helper + " -client " + socket);
+    }
+
+    /**
+     * Creates a new directory in the temporary folder of the agent, that only the user of the agent can use
+     */
+    private static class PrivateTempDirCallable extends MasterToSlaveCallable<String, IOException> {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public String call() throws IOException {
+        final Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+        if (tempDir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+          return Files.createTempDirectory(tempDir, "ps_helper-", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))).toString();
+        }
+        return Files.createTempDirectory(tempDir, "ps_helper-").toString();
+      }
+    }
+
+    /**
+     * Removes the socket of the ps_helper server at the end of the build: the server stops once its socket is removed
+     */
+    private static class ServerDisposer extends Disposer {
+      private static final long serialVersionUID = 1L;
+      private final String socket;
+      private final String privateDir;    // directory created for the socket, null if none
+
+      ServerDisposer(String socket, String privateDir) {
+        this.socket = socket;
+        this.privateDir = privateDir;
+      }
+
+      @Override
+      public void tearDown(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
+        FilePath file = (workspace != null) ? new FilePath(workspace.getChannel(), socket) : new FilePath(new File(socket));
+        if (file.exists()) {
+          file.delete();
+        }
+        if (privateDir != null) {
+          FilePath dir = (workspace != null) ? new FilePath(workspace.getChannel(), privateDir) : new FilePath(new File(privateDir));
+          dir.deleteRecursive();
+        }
+      }
     }
 
     @Override
@@ -160,6 +239,9 @@ public class PolyspaceBuildWrapper extends SimpleBuildWrapper {
 
       // update the path and general helpers
       update_global(context, getDescriptor().getBinConfig(binConfig), initialEnvironment);
+
+      // ps_helper server of the build
+      update_server(context, build, workspace, initialEnvironment);
     }
 
     public String getServerConfig() { return serverConfig; }
@@ -221,8 +303,20 @@ public class PolyspaceBuildWrapper extends SimpleBuildWrapper {
         String getPolyspaceAccessURL() { return polyspaceAccessURL; }
         void setPolyspaceAccessURL(String polyspaceAccessURL) { this.polyspaceAccessURL = polyspaceAccessURL; }
 
+        private long scratchQuota = PolyspaceScratchArea.DEFAULT_QUOTA / (1024 * 1024);   /** Quota of the scratch area of the controller, in MB - 0 for no limit */
+
+        public long getScratchQuota() { return scratchQuota; }
+
+        private int mailServerConnections = PolyspaceMailDispatcher.DEFAULT_CONNECTIONS;   /** Connections to the mail server shared by the Polyspace notifications */
+        private int mailsPerMinute = PolyspaceMailDispatcher.DEFAULT_MAILS_PER_MINUTE;     /** E-mails per minute of the Polyspace notifications - 0 for no limit */
+
+        public int getMailServerConnections() { return mailServerConnections; }
+        public int getMailsPerMinute() { return mailsPerMinute; }
+
         public DescriptorImpl() {
             load();
+            PolyspaceScratchArea.configure(scratchQuota * 1024 * 1024);
+            PolyspaceMailDispatcher.configure(mailServerConnections, mailsPerMinute);
         }
 
         public boolean isApplicable(AbstractProject<?, ?> item) {
@@ -235,6 +329,11 @@ public class PolyspaceBuildWrapper extends SimpleBuildWrapper {
         public boolean configure(StaplerRequest req, JSONObject formData) throws FormException {
           polyspaceAccessConfigs.replaceBy(req.bindJSONToList(PolyspaceAccessConfig.class, formData.get("polyspaceAccessConfigs")));
           polyspaceBinConfigs.replaceBy(req.bindJSONToList(PolyspaceBinConfig.class, formData.get("polyspaceBinConfigs")));
+          scratchQuota = Math.max(0, formData.optLong("scratchQuota", PolyspaceScratchArea.DEFAULT_QUOTA / (1024 * 1024)));
+          PolyspaceScratchArea.configure(scratchQuota * 1024 * 1024);
+          mailServerConnections = Math.max(1, formData.optInt("mailServerConnections", PolyspaceMailDispatcher.DEFAULT_CONNECTIONS));
+          mailsPerMinute = Math.max(0, formData.optInt("mailsPerMinute", PolyspaceMailDispatcher.DEFAULT_MAILS_PER_MINUTE));
+          PolyspaceMailDispatcher.configure(mailServerConnections, mailsPerMinute);
 
           save();
           return super.configure(req,formData);
@@ -0,0 +1,77 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import com.mathworks.polyspace.jenkins.utils.PolyspaceUtils;
+
+import jakarta.activation.DataSource;
+
+/**
+ * E-mail attachment made of a part of a file, read from the file each time the message is written:
+ * the part is never held in memory
+ */
+public class PolyspaceFileRangeDataSource implements DataSource {
+  private final Path file;
+  private final long offset;
+  private final long length;
+  private final String name;
+
+  /**
+   * @param file - Path to the file
+   * @param offset - Position of the part in {@code file}
+   * @param length - Size of the part, in bytes
+   * @param name - File name of the attachment
+   */
+  public PolyspaceFileRangeDataSource(final Path file, final long offset, final long length, final String name) {
+    this.file = file;
+    this.offset = offset;
+    this.length = length;
+    this.name = name;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return PolyspaceUtils.newRangeInputStream(file, offset, length);
+  }
+
+  @Override
+  public OutputStream getOutputStream() throws IOException {
+    throw new IOException("Cannot write the attachment " + name);
+  }
+
+  @Override
+  public String getContentType() {
+    return "application/octet-stream";
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+}
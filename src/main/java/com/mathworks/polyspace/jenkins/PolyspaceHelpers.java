@@ -22,30 +22,83 @@
 package com.mathworks.polyspace.jenkins;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
 
 public class PolyspaceHelpers {
 
   private final PolyspaceHelpersUtils utils;
+  private final PrintStream out;
+  private final PrintStream err;
+  private final Path workingDirectory;   // null if unknown
+  private final boolean inProcess;       // true if the relative paths are relative to the working directory of this JVM
 
   public PolyspaceHelpers(PolyspaceHelpersUtils utils) {
+    this(utils, System.out, System.err);
+  }
+
+  /**
+   * @param utils - The helpers implementation
+   * @param out - Stream for the output of the commands
+   * @param err - Stream for the errors of the commands
+   */
+  public PolyspaceHelpers(PolyspaceHelpersUtils utils, PrintStream out, PrintStream err) {
+    this(utils, out, err, null, true);
+  }
+
+  /**
+   * @param utils - The helpers implementation
+   * @param out - Stream for the output of the commands
+   * @param err - Stream for the errors of the commands
+   * @param workingDirectory - Directory of the relative paths of the commands, {@code null} if unknown: relative paths are then rejected
+   */
+  public PolyspaceHelpers(PolyspaceHelpersUtils utils, PrintStream out, PrintStream err, Path workingDirectory) {
+    this(utils, out, err, workingDirectory, false);
+  }
+
+  private PolyspaceHelpers(PolyspaceHelpersUtils utils, PrintStream out, PrintStream err, Path workingDirectory, boolean inProcess) {
     this.utils = utils;
+    this.out = out;
+    this.err = err;
+    this.workingDirectory = workingDirectory;
+    this.inProcess = inProcess;
+  }
+
+  /**
+   * @param name - A path argument of a command
+   * @return The path, resolved against the working directory
+   */
+  private Path path(final String name) {
+    final Path path = Paths.get(name);
+    if (inProcess) {
+      return path;
+    }
+    if (workingDirectory != null) {
+      return workingDirectory.resolve(path);
+    }
+    if (!path.isAbsolute()) {
+      throw new RuntimeException("Relative path '" + name + "' while the working directory is unknown: use an absolute path");
+    }
+    return path;
   }
 
   public void reportFilter(final String[] arg) throws IOException, RuntimeException {
     if (arg.length < 5) {
-      System.out.println("Usage: ps_helper -report-filter <original_report> <filtered_report> [<owner>] [<title> <value>]+");
+      out.println("Usage: ps_helper -report-filter <original_report> <filtered_report> [<owner>] ([<title> <value>]+ | -where <expression>)");
       return;
     }
 
     int n = 0;
     n++;  // the command - no need to be kept
-    final Path originalReport = Paths.get(arg[n++]);   // name of the original report
-    final Path filteredReport = Paths.get(arg[n++]);   // name of the filtered report
+    final Path originalReport = path(arg[n++]);   // name of the original report
+    final Path filteredReport = path(arg[n++]);   // name of the filtered report
 
     String owner;
     if ((arg.length % 2) == 0) {
@@ -60,77 +113,316 @@ public class PolyspaceHelpers {
     this.utils.reportFilter(originalReport, filteredReport, owner, filters);
   }
 
+  public void reportFilterParallel(final String[] arg) throws IOException, RuntimeException, NumberFormatException {
+    if (arg.length < 6) {
+      out.println("Usage: ps_helper -report-filter-parallel <workers> <original_report> <filtered_report> [<owner>] ([<title> <value>]+ | -where <expression>)");
+      return;
+    }
+
+    int n = 0;
+    n++;  // the command - no need to be kept
+    final int workers = Integer.parseInt(arg[n++]);    // number of threads, 0 for all processors
+    final Path originalReport = path(arg[n++]);   // name of the original report
+    final Path filteredReport = path(arg[n++]);   // name of the filtered report
+
+    String owner;
+    if ((arg.length % 2) == 1) {
+      // odd number of arguments => there is owner that is specified
+      owner = arg[n++];
+    } else {
+      owner = "";
+    }
+
+    final String[] filters = Arrays.copyOfRange(arg, n, arg.length);
+
+    this.utils.reportFilterParallel(originalReport, filteredReport, owner, filters, workers);
+  }
+
+  public void reportRoute(final String[] arg) throws IOException, RuntimeException {
+    if (arg.length != 4) {
+      out.println("Usage: ps_helper -report-route <original_report> <filtered_report> <rules_file>");
+      return;
+    }
+    this.utils.reportRoute(path(arg[1]), path(arg[2]), path(arg[3]));
+  }
+
+  public void reportDiff(final String[] arg) throws IOException, RuntimeException {
+    if (arg.length != 5) {
+      out.println("Usage: ps_helper -report-diff <report> <baseline_report> <diff_report> <key_title>[,<key_title>...]");
+      return;
+    }
+    final long[] counts = this.utils.reportDiff(path(arg[1]), path(arg[2]), path(arg[3]), arg[4].split(","));
+    out.println(counts[0] + " new, " + counts[1] + " fixed");
+  }
+
+  public void reportAggregate(final String[] arg) throws IOException, RuntimeException {
+    final boolean json = (arg.length == 4) && arg[3].equals("-json");
+    if ((arg.length != 3) && !json) {
+      out.println("Usage: ps_helper -report-aggregate <report> <title>[,<title>...] [-json]");
+      return;
+    }
+    final String[] titles = arg[2].split(",");
+    out.println(this.utils.formatReportAggregate(titles, this.utils.getReportAggregate(path(arg[1]), titles), json));
+  }
+
+  public void reportIndex(final String[] arg) throws IOException, RuntimeException {
+    if (arg.length != 2) {
+      out.println("Usage: ps_helper -report-index <report>");
+      return;
+    }
+    this.utils.reportIndex(path(arg[1]));
+  }
+
   public void printRunId(final String[] arg) throws IOException, RuntimeException {
     if (arg.length != 2) {
-      System.out.println("Usage: ps_helper -print-runid <access upload output>");
+      out.println("Usage: ps_helper -print-runid <access upload output>");
       return;
     }
-    System.out.println(this.utils.getAccessResultRunId(Paths.get(arg[1])));
+    out.println(this.utils.getAccessResultRunId(path(arg[1])));
   }
 
   public void printProjectId(final String[] arg) throws IOException, RuntimeException {
     if (arg.length != 2) {
-      System.out.println("Usage: ps_helper -print-projectid <access upload output>");
+      out.println("Usage: ps_helper -print-projectid <access upload output>");
       return;
     }
-    System.out.println(this.utils.getAccessResultProjectId(Paths.get(arg[1])));
+    out.println(this.utils.getAccessResultProjectId(path(arg[1])));
   }
 
   public void printProjectUrl(final String[] arg) throws IOException, RuntimeException {
     if (arg.length != 3) {
-      System.out.println("Usage: ps_helper -print-projecturl <access upload output> <access_url>");
+      out.println("Usage: ps_helper -print-projecturl <access upload output> <access_url>");
+      return;
+    }
+    out.println(this.utils.getAccessResultUrl(path(arg[1]), arg[2]));
+  }
+
+  public void printAccessResult(final String[] arg) throws IOException, RuntimeException {
+    final boolean json = (arg.length > 2) && arg[arg.length - 1].equals("-json");
+    final int length = json ? arg.length - 1 : arg.length;
+    if ((length != 2) && (length != 3)) {
+      out.println("Usage: ps_helper -print-access-result <access upload output> [<access_url>] [-json]");
       return;
     }
-    System.out.println(this.utils.getAccessResultUrl(Paths.get(arg[1]), arg[2]));
+    out.println(this.utils.getAccessResult(path(arg[1]), (length == 3) ? arg[2] : "", json));
+  }
+
+  public void accessUploadTee(final String[] arg) throws IOException, RuntimeException {
+    final boolean json = (arg.length > 2) && arg[arg.length - 1].equals("-json");
+    final int length = json ? arg.length - 1 : arg.length;
+    if ((length != 2) && (length != 3)) {
+      out.println("Usage: ps_helper -access-upload-tee <result_file> [<access_url>] [-json] < <access upload output>");
+      return;
+    }
+    this.utils.teeAccessUploadResult(System.in, out, path(arg[1]), (length == 3) ? arg[2] : "", json);
   }
 
   public void reportStatus(final String[] arg) throws IOException, NumberFormatException {
     if (arg.length != 3) {
-      System.out.println("Usage: ps_helper -report-status <report> <nb_to_fail>");
+      out.println("Usage: ps_helper -report-status <report> <nb_to_fail>");
       return;
     }
-    System.out.println(this.utils.getReportStatus(Paths.get(arg[1]), Long.parseLong(arg[2])));
+    out.println(this.utils.getReportStatus(path(arg[1]), Long.parseLong(arg[2])));
   }
 
   public void reportCountFindings(final String[] arg) throws IOException, NumberFormatException {
     if (arg.length != 2) {
-      System.out.println("Usage: ps_helper -report-count-findings <report>");
+      out.println("Usage: ps_helper -report-count-findings <report>");
       return;
     }
-    System.out.println(this.utils.getCountFindings(Paths.get(arg[1])));
+    out.println(this.utils.getCountFindings(path(arg[1])));
   }
 
-  public static void main (String[] arg) throws IOException, RuntimeException, NumberFormatException {
-    PolyspaceHelpersUtils utils = new PolyspaceHelpersUtils();
-    PolyspaceHelpers helper = new PolyspaceHelpers(utils);
-
-    boolean usage = false;
+  /**
+   * Run one helper command
+   * @param arg - The command and its arguments
+   * @return {@code false} if the command is unknown
+   * @throws IOException Error while running the command
+   */
+  public boolean run(final String[] arg) throws IOException, RuntimeException, NumberFormatException {
     if (arg.length == 0) {
-        usage = true;
+        return false;
     } else if (arg[0].equals("-report-filter") || arg[0].equals("report_filter")) {
-        helper.reportFilter(arg);
+        reportFilter(arg);
+    } else if (arg[0].equals("-report-filter-parallel") || arg[0].equals("report_filter_parallel")) {
+        reportFilterParallel(arg);
+    } else if (arg[0].equals("-report-route") || arg[0].equals("report_route")) {
+        reportRoute(arg);
+    } else if (arg[0].equals("-report-diff") || arg[0].equals("report_diff")) {
+        reportDiff(arg);
+    } else if (arg[0].equals("-report-aggregate") || arg[0].equals("report_aggregate")) {
+        reportAggregate(arg);
+    } else if (arg[0].equals("-report-index") || arg[0].equals("report_index")) {
+        reportIndex(arg);
     } else if (arg[0].equals("-report-status") || arg[0].equals("report_status")) {
-        helper.reportStatus(arg);
+        reportStatus(arg);
     } else if (arg[0].equals("-report-count-findings") || arg[0].equals("report_count_findings")) {
-        helper.reportCountFindings(arg);
+        reportCountFindings(arg);
     } else if (arg[0].equals("-print-runid") || arg[0].equals("print_runid")) {
-        helper.printRunId(arg);
+        printRunId(arg);
     } else if (arg[0].equals("-print-projectid") || arg[0].equals("print_projectid")) {
-        helper.printProjectId(arg);
+        printProjectId(arg);
     } else if (arg[0].equals("-print-projecturl") || arg[0].equals("print_projecturl")) {
-        helper.printProjectUrl(arg);
+        printProjectUrl(arg);
+    } else if (arg[0].equals("-print-access-result") || arg[0].equals("print_access_result")) {
+        printAccessResult(arg);
+    } else {
+        return false;
+    }
+    return true;
+  }
+
+  public void printUsage() throws IOException {
+    String[] empty = {} ;
+    reportFilter(empty);
+    reportFilterParallel(empty);
+    reportRoute(empty);
+    reportDiff(empty);
+    reportAggregate(empty);
+    reportIndex(empty);
+    reportStatus(empty);
+    reportCountFindings(empty);
+    printRunId(empty);
+    printProjectId(empty);
+    printProjectUrl(empty);
+    printAccessResult(empty);
+    accessUploadTee(empty);
+    batch(empty);
+    PolyspaceHelpersServer.printUsage(out);
+  }
+
+  public void batch(final String[] arg) throws IOException, RuntimeException {
+    if (arg.length != 2) {
+      out.println("Usage: ps_helper -batch <commands_file|->");
+      return;
+    }
+    final int failures;
+    if (arg[1].equals("-")) {
+      failures = runBatch(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
     } else {
-        usage = true;
+      try (BufferedReader commands = Files.newBufferedReader(path(arg[1]), StandardCharsets.UTF_8)) {
+        failures = runBatch(commands);
+      }
+    }
+    if (failures > 0) {
+      throw new RuntimeException(failures + " batch command(s) failed");
+    }
+  }
+
+  /**
+   * Run the helper commands of {@code commands} in this JVM, one command per line, with the same output as separate calls.
+   * Arguments are separated by spaces and quoted as described in {@link #splitCommandLine}. Empty lines and lines starting with '#' are ignored.
+   * A failing command is reported on the error stream, with its line number, and the next commands are still run.
+   * @param commands - Reader of the commands
+   * @return The number of commands that failed
+   * @throws IOException Error while reading {@code commands}
+   */
+  public int runBatch(final BufferedReader commands) throws IOException {
+    int failures = 0;
+    int lineNumber = 0;
+    String line;
+    while ((line = commands.readLine()) != null) {
+      lineNumber++;
+      final String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+        continue;
+      }
+      try {
+        final String[] command = splitCommandLine(trimmed);
+        if (command[0].equals("-batch") || command[0].equals("batch") || !run(command)) {
+          throw new RuntimeException("Unknown command '" + command[0] + "'");
+        }
+      } catch (IOException | RuntimeException e) {
+        failures++;
+        err.println("ps_helper: line " + lineNumber + ": " + trimmed);
+        err.println("ps_helper: " + ((e.getMessage() != null) ? e.getMessage() : e.toString()));
+      }
+      out.flush();
     }
+    return failures;
+  }
+
+  /**
+   * Split a command line into arguments: arguments are separated by spaces, and spaces are kept in arguments quoted with ' or ".
+   * Unlike a shell, a backslash is a plain character, so that Windows paths are written as they are:
+   * only {@code \"} and {@code \\} inside double quotes are escapes, for a double quote and a backslash.
+   * @param line - The command line
+   * @return The arguments
+   */
+  public static String[] splitCommandLine(final String line) {
+    final List<String> args = new ArrayList<>();
+    final StringBuilder arg = new StringBuilder();
+    boolean inArg = false;
+    char quote = 0;
+    for (int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (quote == '\'') {
+        if (c == '\'') {
+          quote = 0;
+        } else {
+          arg.append(c);
+        }
+      } else if (quote == '"') {
+        if ((c == '\\') && (i + 1 < line.length()) && ((line.charAt(i + 1) == '"') || (line.charAt(i + 1) == '\\'))) {
+          arg.append(line.charAt(++i));
+        } else if (c == '"') {
+          quote = 0;
+        } else {
+          arg.append(c);
+        }
+      } else if ((c == '\'') || (c == '"')) {
+        quote = c;
+        inArg = true;
+      } else if (Character.isWhitespace(c)) {
+        if (inArg) {
+          args.add(arg.toString());
+          arg.setLength(0);
+          inArg = false;
+        }
+      } else {
+        arg.append(c);
+        inArg = true;
+      }
+    }
+    if (quote != 0) {
+      throw new RuntimeException("Missing closing quote: " + line);
+    }
+    if (inArg) {
+      args.add(arg.toString());
+    }
+    return args.toArray(new String[0]);
+  }
 
-    if (usage) {
-        String[] empty = {} ;
-        helper.reportFilter(empty);
-        helper.reportStatus(empty);
-        helper.reportCountFindings(empty);
-        helper.printRunId(empty);
-        helper.printProjectId(empty);
-        helper.printProjectUrl(empty);
+  /**
+   * Run a command as the command line of ps_helper: a helper command, a batch of commands, or the usage
+   * @param arg - The command and its arguments
+   * @throws IOException Error while running the command
+   */
+  public void execute(final String[] arg) throws IOException, RuntimeException, NumberFormatException {
+    if ((arg.length > 0) && (arg[0].equals("-batch") || arg[0].equals("batch"))) {
+      batch(arg);
+    } else if ((arg.length > 0) && (arg[0].equals("-access-upload-tee") || arg[0].equals("access_upload_tee"))) {
+      accessUploadTee(arg);
+    } else if (!run(arg)) {
+      printUsage();
     }
   }
+
+  public static void main (String[] arg) throws IOException, RuntimeException, NumberFormatException {
+    if ((arg.length > 0) && (arg[0].equals("-server") || arg[0].equals("server"))) {
+      PolyspaceHelpersServer.server(arg);
+      return;
+    }
+    if ((arg.length > 0) && (arg[0].equals("-client") || arg[0].equals("client"))) {
+      final int status = PolyspaceHelpersServer.client(arg);
+      if (status != 0) {
+        System.exit(status);
+      }
+      return;
+    }
+
+    PolyspaceHelpersUtils utils = new PolyspaceHelpersUtils();
+    PolyspaceHelpers helper = new PolyspaceHelpers(utils);
+    helper.execute(arg);
+  }
 }
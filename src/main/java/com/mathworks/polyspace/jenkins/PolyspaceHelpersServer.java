@@ -0,0 +1,375 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PushbackInputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+/**
+ * Runs ps_helper commands in a long-running JVM listening on a Unix domain socket, so that each command
+ * runs with warm code and caches instead of starting a new JVM.
+ * <p>
+ * A client sends the arguments of one command: the number of arguments, then each argument, then its working directory,
+ * each string as its length then its UTF-8 bytes with {@link DataOutputStream}, so that a long argument such as a filter expression is not limited:
+ * the relative paths of the command are resolved against the working directory of the client.
+ * The server answers with frames: a type, then for output frames the length and the bytes written by the command,
+ * and for the final frame the exit status of the command.
+ * A client can also send the command as a line of text, quoted as for {@link PolyspaceHelpers#splitCommandLine}: the server then answers with the output of the command only,
+ * so that tools such as {@code socat} can call the server without starting a JVM. The working directory of a text command
+ * is given by {@code -cwd <dir>} before the command, else the command accepts only absolute paths.
+ * <p>
+ * The socket file can be used by its owner only: the commands read and write files as the user of the server.
+ * <p>
+ * The server stops when its socket file is deleted - for instance by the build wrapper at the end of the build -
+ * or when it received no command during the idle timeout.
+ */
+public class PolyspaceHelpersServer {
+  private static final byte FRAME_EXIT = 0;
+  private static final byte FRAME_OUT = 1;
+  private static final byte FRAME_ERR = 2;
+
+  /** Default idle timeout of the server, in seconds */
+  public static final long DEFAULT_IDLE_TIMEOUT = 600;
+
+  /** Interval between checks of the socket file and of the idle timeout, in milliseconds */
+  private static final long CHECK_INTERVAL = 1000;
+
+  /** Maximum length of the path of a Unix domain socket, in bytes: sun_path is 108 bytes on Linux, 104 on macOS, terminating null included */
+  private static final int MAX_SOCKET_PATH = 103;
+
+  /** Maximum length of a string sent by a client, in bytes */
+  private static final int MAX_STRING = 64 * 1024 * 1024;
+
+  private PolyspaceHelpersServer() {
+  }
+
+  public static void printUsage(final PrintStream out) {
+    out.println("Usage: ps_helper -server <socket> [<idle_timeout_seconds>]");
+    out.println("Usage: ps_helper -client <socket> <command> [<arguments>]...");
+  }
+
+  static void server(final String[] arg) throws IOException {
+    if ((arg.length != 2) && (arg.length != 3)) {
+      printUsage(System.out);
+      return;
+    }
+    final long idleTimeout = (arg.length == 3) ? Long.parseLong(arg[2]) : DEFAULT_IDLE_TIMEOUT;
+    serve(Paths.get(arg[1]), TimeUnit.SECONDS.toMillis(idleTimeout), new PolyspaceHelpersUtils());
+  }
+
+  static int client(final String[] arg) throws IOException {
+    if (arg.length < 3) {
+      printUsage(System.out);
+      return 0;
+    }
+    final String[] command = new String[arg.length - 2];
+    System.arraycopy(arg, 2, command, 0, command.length);
+    return call(Paths.get(arg[1]), command, System.out, System.err);
+  }
+
+  /**
+   * @param socket - Path to a socket file
+   * @return {@code true} if the path is short enough to bind a Unix domain socket on it
+   */
+  public static boolean isSocketPathValid(final String socket) {
+    return socket.getBytes(StandardCharsets.UTF_8).length <= MAX_SOCKET_PATH;
+  }
+
+  /**
+   * Serve ps_helper commands on {@code socket} until the socket file is deleted or no command is received during {@code idleTimeout}
+   * @param socket - Path to the socket file to create
+   * @param idleTimeout - Idle timeout in milliseconds
+   * @param utils - The helpers implementation, shared by all commands
+   * @throws IOException Error while creating or accepting connections on {@code socket}
+   */
+  public static void serve(final Path socket, final long idleTimeout, final PolyspaceHelpersUtils utils) throws IOException {
+    final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "ps_helper command");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicLong lastActivity = new AtomicLong(System.currentTimeMillis());
+    if (!isSocketPathValid(socket.toString())) {
+      throw new IOException("ps_helper server socket path is too long for a Unix domain socket (" + MAX_SOCKET_PATH + " bytes at most): '" + socket + "'");
+    }
+    Files.createDirectories(socket.toAbsolutePath().getParent());
+    Files.deleteIfExists(socket);   // left by a server that did not stop properly
+    try (final ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+         final Selector selector = Selector.open())
+    {
+      server.bind(UnixDomainSocketAddress.of(socket));
+      if (socket.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+        // the socket is created with the permissions of the umask: only the owner can connect
+        Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+      }
+      server.configureBlocking(false);
+      server.register(selector, SelectionKey.OP_ACCEPT);
+      while (Files.exists(socket)
+          && ((running.get() > 0) || (System.currentTimeMillis() - lastActivity.get() < idleTimeout))) {
+        selector.select(CHECK_INTERVAL);
+        selector.selectedKeys().clear();
+        SocketChannel client;
+        while ((client = server.accept()) != null) {
+          final SocketChannel connection = client;
+          running.incrementAndGet();
+          workers.execute(() -> {
+            try {
+              handle(connection, utils);
+            } finally {
+              lastActivity.set(System.currentTimeMillis());
+              running.decrementAndGet();
+            }
+          });
+        }
+      }
+    } finally {
+      workers.shutdownNow();
+      Files.deleteIfExists(socket);
+    }
+  }
+
+  /**
+   * Run the command of {@code connection} and send its output and exit status
+   */
+  private static void handle(final SocketChannel connection, final PolyspaceHelpersUtils utils) {
+    try (connection) {
+      final PushbackInputStream in = new PushbackInputStream(Channels.newInputStream(connection));
+      final int first = in.read();
+      if (first == -1) {
+        return;
+      }
+      in.unread(first);
+      if (first == 0) {
+        handleFrames(new DataInputStream(in), new DataOutputStream(Channels.newOutputStream(connection)), utils);
+      } else {
+        handleText(in, Channels.newOutputStream(connection), utils);
+      }
+    } catch (IOException e) {
+      // the client is gone: nothing to answer
+    }
+  }
+
+  /**
+   * Command sent by {@link #call}: the output is sent in frames, followed by the exit status
+   */
+  private static void handleFrames(final DataInputStream in, final DataOutputStream frames, final PolyspaceHelpersUtils utils) throws IOException {
+    final String[] command = new String[in.readInt()];
+    for (int a = 0; a < command.length; a++) {
+      command[a] = readString(in);
+    }
+    final Path workingDirectory = Paths.get(readString(in));
+
+    int status;
+    try (final PrintStream out = new PrintStream(new FrameOutputStream(frames, FRAME_OUT), true, StandardCharsets.UTF_8);
+         final PrintStream err = new PrintStream(new FrameOutputStream(frames, FRAME_ERR), true, StandardCharsets.UTF_8))
+    {
+      status = execute(command, workingDirectory, utils, out, err);
+    }
+    synchronized (frames) {
+      frames.writeByte(FRAME_EXIT);
+      frames.writeInt(status);
+      frames.flush();
+    }
+  }
+
+  private static String readString(final DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if ((length < 0) || (length > MAX_STRING)) {
+      throw new IOException("Invalid string length " + length);
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(final DataOutputStream out, final String string) throws IOException {
+    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Command sent as a line of text, for instance with {@code socat} or {@code nc -U}: the output is sent as is
+   */
+  private static void handleText(final InputStream in, final OutputStream output, final PolyspaceHelpersUtils utils) throws IOException {
+    final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while (((b = in.read()) != -1) && (b != '\n')) {
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    try (final PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8))
+    {
+      String[] command = PolyspaceHelpers.splitCommandLine(line.toString(StandardCharsets.UTF_8));
+      Path workingDirectory = null;
+      if ((command.length >= 2) && command[0].equals("-cwd")) {
+        workingDirectory = Paths.get(command[1]);
+        command = Arrays.copyOfRange(command, 2, command.length);
+      }
+      if ((workingDirectory != null) && !workingDirectory.isAbsolute()) {
+        out.println("The working directory of -cwd must be an absolute path: '" + workingDirectory + "'");
+        return;
+      }
+      execute(command, workingDirectory, utils, out, out);
+    }
+  }
+
+  /**
+   * @param workingDirectory - Directory of the relative paths of {@code command}, {@code null} to accept only absolute paths
+   * @return The exit status of the command
+   */
+  private static int execute(final String[] command, final Path workingDirectory, final PolyspaceHelpersUtils utils, final PrintStream out, final PrintStream err) {
+    try {
+      if ((command.length == 2) && (command[0].equals("-batch") || command[0].equals("batch")) && command[1].equals("-")) {
+        throw new RuntimeException("The ps_helper server cannot read a batch from the standard input of the client");
+      }
+      if ((command.length > 0) && (command[0].equals("-access-upload-tee") || command[0].equals("access_upload_tee"))) {
+        throw new RuntimeException("The ps_helper server cannot read an upload output from the standard input of the client");
+      }
+      new PolyspaceHelpers(utils, out, err, workingDirectory).execute(command);
+      return 0;
+    } catch (IOException | RuntimeException e) {
+      err.println((e.getMessage() != null) ? e.getMessage() : e.toString());
+      return 1;
+    }
+  }
+
+  /**
+   * Output stream sending what is written as frames of one type
+   */
+  private static class FrameOutputStream extends OutputStream {
+    private final DataOutputStream frames;
+    private final byte type;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    FrameOutputStream(final DataOutputStream frames, final byte type) {
+      this.frames = frames;
+      this.type = type;
+    }
+
+    @Override
+    public void write(final int b) {
+      buffer.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      buffer.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (buffer.size() > 0) {
+        synchronized (frames) {
+          frames.writeByte(type);
+          frames.writeInt(buffer.size());
+          buffer.writeTo(frames);
+          frames.flush();
+        }
+        buffer.reset();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * Run {@code command} in the server listening on {@code socket}, or in this JVM if there is no server.
+   * The relative paths of {@code command} are resolved against the working directory of this JVM in both cases.
+   * @param socket - Path to the socket of the server
+   * @param command - The command and its arguments
+   * @param out - Stream receiving the output of the command
+   * @param err - Stream receiving the errors of the command
+   * @return The exit status of the command
+   * @throws IOException Error while communicating with the server
+   */
+  public static int call(final Path socket, final String[] command, final PrintStream out, final PrintStream err) throws IOException {
+    final SocketChannel connection;
+    try {
+      connection = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+    } catch (IOException e) {
+      // no server: run the command here
+      new PolyspaceHelpers(new PolyspaceHelpersUtils(), out, err).execute(command);
+      return 0;
+    }
+    try (connection) {
+      final DataOutputStream request = new DataOutputStream(Channels.newOutputStream(connection));
+      request.writeInt(command.length);
+      for (final String arg : command) {
+        writeString(request, arg);
+      }
+      writeString(request, Paths.get("").toAbsolutePath().toString());
+      request.flush();
+
+      final DataInputStream frames = new DataInputStream(Channels.newInputStream(connection));
+      while (true) {
+        final byte type;
+        try {
+          type = frames.readByte();
+        } catch (EOFException e) {
+          throw new IOException("ps_helper server at '" + socket + "' stopped before the end of the command", e);
+        }
+        if (type == FRAME_EXIT) {
+          out.flush();
+          err.flush();
+          return frames.readInt();
+        }
+        final byte[] bytes = new byte[frames.readInt()];
+        frames.readFully(bytes);
+        ((type == FRAME_OUT) ? out : err).write(bytes);
+      }
+    }
+  }
+}
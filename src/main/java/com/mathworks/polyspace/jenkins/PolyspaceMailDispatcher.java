@@ -0,0 +1,329 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.PasswordAuthentication;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Controller-wide sending of the notification e-mails, shared by the builds:
+ * <ul>
+ *   <li>a pool of connections to the mail server, kept open between builds, caps the e-mails sent at the same time</li>
+ *   <li>a token bucket caps the number of e-mails sent per minute</li>
+ *   <li>an e-mail refused with a transient 4xx reply, such as 421 when the server throttles, is sent again after a delay
+ *   by {@link #send}; {@link #trySend} leaves it to the caller, for instance to the {@link PolyspaceMailQueue}</li>
+ * </ul>
+ * The limits are set in the global configuration, see {@link PolyspaceBuildWrapper.DescriptorImpl}.
+ */
+public class PolyspaceMailDispatcher {
+
+  /**
+   * Rate limit: a token is taken for each e-mail, and tokens come back at a constant rate up to a capacity.
+   * A caller without token waits its turn: tokens are reserved in the order of the calls.
+   */
+  public static final class TokenBucket {
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long last = System.nanoTime();
+
+    /**
+     * @param perMinute - Tokens given back per minute - 0 or less for no limit
+     * @param capacity - Maximum number of tokens taken at once, after a time without e-mail
+     */
+    public TokenBucket(final int perMinute, final int capacity) {
+      this.tokensPerNano = Math.max(0, perMinute) / (double) TimeUnit.MINUTES.toNanos(1);
+      this.capacity = Math.max(1, capacity);
+      this.tokens = this.capacity;
+    }
+
+    /**
+     * Take a token, waiting for one if none is left
+     * @throws InterruptedException Interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+      final long wait = reserve();
+      if (wait > 0) {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      }
+    }
+
+    /**
+     * @return Time to wait for the reserved token, in nanoseconds
+     */
+    synchronized long reserve() {
+      if (tokensPerNano == 0) {
+        return 0;
+      }
+      final long now = System.nanoTime();
+      tokens = Math.min(capacity, tokens + (now - last) * tokensPerNano);
+      last = now;
+      tokens -= 1;    // negative when callers wait: the next caller waits longer
+      return (tokens >= 0) ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+  }
+
+  /**
+   * Connections of a mail session, used by a number of e-mails being sent
+   */
+  private static final class Connections {
+    final PolyspaceMailSenderPool pool;
+    final PasswordAuthentication credentials;
+    // sessions already known to send to the same server with the same credentials, compared once
+    final Set<Session> sessions = Collections.newSetFromMap(new WeakHashMap<>());
+    int users = 0;
+    boolean retired = false;    // replaced by other connections: closed once no longer used
+
+    Connections(final PolyspaceMailSenderPool pool, final PasswordAuthentication credentials) {
+      this.pool = pool;
+      this.credentials = credentials;
+      sessions.add(pool.getSession());
+    }
+  }
+
+  /** Connections to the mail server shared by the builds, by default */
+  public static final int DEFAULT_CONNECTIONS = 2;
+  /** E-mails per minute, by default: no limit */
+  public static final int DEFAULT_MAILS_PER_MINUTE = 0;
+
+  private static final int MAX_ATTEMPTS = 4;
+  private static final long FIRST_RETRY_DELAY = TimeUnit.SECONDS.toMillis(10);
+  // transient negative completion reply of RFC 5321 in the message of the exceptions of the SMTP provider:
+  // first for the refused commands, after "response:" for a bad greeting when the server throttles the connections
+  private static final Pattern TRANSIENT_REPLY = Pattern.compile("(^\\s*|response:\\s*)4\\d\\d\\b");
+
+  private static final PolyspaceMailDispatcher INSTANCE = new PolyspaceMailDispatcher(DEFAULT_CONNECTIONS, DEFAULT_MAILS_PER_MINUTE, MAX_ATTEMPTS, FIRST_RETRY_DELAY);
+
+  /** @return The dispatcher of the controller */
+  public static PolyspaceMailDispatcher get() { return INSTANCE; }
+
+  /**
+   * Set the limits of the dispatcher of the controller
+   * @param connections - Maximum number of connections to the mail server
+   * @param mailsPerMinute - Maximum number of e-mails per minute - 0 for no limit
+   */
+  public static void configure(final int connections, final int mailsPerMinute) {
+    INSTANCE.setLimits(connections, mailsPerMinute);
+  }
+
+  private final int maxAttempts;
+  private final long firstRetryDelay;
+  private final AtomicInteger sent = new AtomicInteger();
+  private int connections;
+  private volatile TokenBucket bucket;
+  private Connections current = null;
+
+  /**
+   * @param connections - Maximum number of connections to the mail server
+   * @param mailsPerMinute - Maximum number of e-mails per minute - 0 for no limit
+   * @param maxAttempts - Maximum number of attempts to send an e-mail refused with a transient reply
+   * @param firstRetryDelay - Delay before the second attempt, in milliseconds - doubled for each next attempt
+   */
+  public PolyspaceMailDispatcher(final int connections, final int mailsPerMinute, final int maxAttempts, final long firstRetryDelay) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.firstRetryDelay = firstRetryDelay;
+    setLimits(connections, mailsPerMinute);
+  }
+
+  /**
+   * @param connections - Maximum number of connections to the mail server
+   * @param mailsPerMinute - Maximum number of e-mails per minute - 0 for no limit
+   */
+  public synchronized void setLimits(final int connections, final int mailsPerMinute) {
+    // up to 10 seconds of e-mails at once after a quiet period
+    bucket = new TokenBucket(mailsPerMinute, Math.max(1, mailsPerMinute / 6));
+    if (Math.max(1, connections) != this.connections) {
+      this.connections = Math.max(1, connections);
+      retire();
+    }
+  }
+
+  /** @return The number of e-mails sent */
+  public int getSent() { return sent.get(); }
+
+  /**
+   * @param e - Error while sending an e-mail
+   * @return {@code true} if the mail server replied with a transient error, 4xx: the e-mail can be sent again later
+   */
+  public static boolean isTransient(final Throwable e) {
+    // the SMTP exceptions chain the replies of the server, for instance the ones of each rejected address
+    Throwable error = e;
+    for (int depth = 0; (error != null) && (depth < 10); depth++) {
+      final int code = getReturnCode(error);
+      if ((code >= 400) && (code < 500)) {
+        return true;
+      }
+      if ((code < 0) && (error.getMessage() != null) && TRANSIENT_REPLY.matcher(error.getMessage()).find()) {
+        return true;
+      }
+      error = error.getCause();
+    }
+    return false;
+  }
+
+  /**
+   * @param error - Error while sending an e-mail
+   * @return The reply code of the mail server given by the SMTP exceptions of the provider, whatever its package, or -1
+   */
+  private static int getReturnCode(final Throwable error) {
+    try {
+      final Method method = error.getClass().getMethod("getReturnCode");
+      if (method.getReturnType() == int.class) {
+        return (int) method.invoke(error);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // not an SMTP exception
+    }
+    return -1;
+  }
+
+  /**
+   * Send {@code msg}, waiting for the rate limit and for a connection to the mail server.
+   * An e-mail refused with a transient reply is sent again after a delay, in the calling thread.
+   * @param session - Mail session, as created by {@code Mailer.descriptor().createSession()}:
+   * the connections are kept between e-mails while the mail server settings and credentials do not change
+   * @param msg - The e-mail to send
+   * @throws MessagingException Error while sending {@code msg}, after the attempts for a transient reply
+   * @throws InterruptedException Interrupted while waiting
+   */
+  public void send(final Session session, final MimeMessage msg) throws MessagingException, InterruptedException {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        trySend(session, msg);
+        return;
+      } catch (MessagingException e) {
+        if (!isTransient(e) || (attempt >= maxAttempts)) {
+          throw e;
+        }
+      }
+      Thread.sleep(firstRetryDelay << (attempt - 1));
+    }
+  }
+
+  /**
+   * Send {@code msg} once, waiting for the rate limit and for a connection to the mail server
+   * @param session - Mail session, see {@link #send}
+   * @param msg - The e-mail to send
+   * @throws MessagingException Error while sending {@code msg}, see {@link #isTransient} to know if it can be sent again later
+   * @throws InterruptedException Interrupted while waiting
+   */
+  public void trySend(final Session session, final MimeMessage msg) throws MessagingException, InterruptedException {
+    bucket.acquire();
+    final Connections used = acquire(session);
+    try {
+      final PolyspaceMailSender sender = used.pool.acquire();
+      try {
+        sender.send(msg);
+        sent.incrementAndGet();
+      } finally {
+        used.pool.release(sender);
+      }
+    } finally {
+      release(used);
+    }
+  }
+
+  /** @return The credentials of {@code session}, that are not in its properties but given by its authenticator */
+  private static PasswordAuthentication getCredentials(final Session session) {
+    return session.requestPasswordAuthentication(null, 0, "smtp", null, null);
+  }
+
+  /**
+   * @return {@code true} if {@code connections} can send the e-mails of {@code session}: same properties and same credentials
+   */
+  private static boolean isSameServer(final Connections connections, final Session session, final PasswordAuthentication credentials) {
+    if (!Objects.equals(connections.pool.getSession().getProperties(), session.getProperties())) {
+      return false;
+    }
+    if ((connections.credentials == null) || (credentials == null)) {
+      return connections.credentials == credentials;
+    }
+    return Objects.equals(connections.credentials.getUserName(), credentials.getUserName())
+      && Objects.equals(connections.credentials.getPassword(), credentials.getPassword());
+  }
+
+  private Connections acquire(final Session session) {
+    synchronized (this) {
+      if ((current != null) && current.sessions.contains(session)) {
+        current.users++;
+        return current;
+      }
+    }
+    // a new session, usually one per build: its credentials are requested once, out of the lock
+    final PasswordAuthentication credentials = getCredentials(session);
+    synchronized (this) {
+      if ((current == null) || !isSameServer(current, session, credentials)) {
+        // the mail server settings or credentials changed: the connections of the previous settings are closed once their e-mails are sent
+        retire();
+        current = new Connections(new PolyspaceMailSenderPool(session, connections), credentials);
+      }
+      current.sessions.add(session);
+      current.users++;
+      return current;
+    }
+  }
+
+  private synchronized void release(final Connections used) {
+    used.users--;
+    if (used.retired && (used.users == 0)) {
+      close(used);
+    }
+  }
+
+  private synchronized void retire() {
+    if (current != null) {
+      current.retired = true;
+      if (current.users == 0) {
+        close(current);
+      }
+      current = null;
+    }
+  }
+
+  private static void close(final Connections connections) {
+    try {
+      connections.pool.close();
+    } catch (IOException e) {
+      // the connections are already lost
+    }
+  }
+
+  /**
+   * Close the connections to the mail server - opened again by the next e-mail
+   */
+  public void shutdown() {
+    retire();
+  }
+}
@@ -0,0 +1,182 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Controller-wide queue sending the notification e-mails of the builds in the background,
+ * so that builds do not wait for the mail server.
+ * The e-mails are sent by a {@link PolyspaceMailDispatcher}, on the connections it shares with the builds.
+ * An e-mail that cannot be sent is tried again later,
+ * with a delay doubled at each attempt, up to a maximum number of attempts.
+ * E-mails rejected by the mail server because of their addresses, with a permanent reply, are not tried again.
+ */
+public class PolyspaceMailQueue {
+
+  /** Delivery status of a queued e-mail */
+  public enum Status { QUEUED, RETRYING, SENT, FAILED }
+
+  /**
+   * Receives the delivery status of a queued e-mail
+   */
+  public interface Listener {
+    /**
+     * @param status - New status of the e-mail
+     * @param attempts - Number of attempts to send the e-mail so far, not counting the rounds it was not tried in
+     * because the mail server failed on a previous e-mail
+     * @param error - Error of the last attempt, or why the e-mail was not tried, {@code null} if none
+     */
+    void update(Status status, int attempts, String error);
+  }
+
+  /**
+   * E-mail to send, ready to be sent: its attachments are on the controller
+   */
+  public static class Mail {
+    final MimeMessage message;
+    final Listener listener;
+    int attempts = 0;
+
+    public Mail(final MimeMessage message, final Listener listener) {
+      this.message = message;
+      this.listener = listener;
+    }
+  }
+
+  private static final int MAX_ATTEMPTS = 5;
+  private static final long FIRST_RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+  private static final PolyspaceMailQueue INSTANCE = new PolyspaceMailQueue(PolyspaceMailDispatcher.get(), FIRST_RETRY_DELAY, MAX_ATTEMPTS);
+
+  /** @return The queue of the controller */
+  public static PolyspaceMailQueue get() { return INSTANCE; }
+
+  private final PolyspaceMailDispatcher dispatcher;
+  private boolean ownDispatcher = false;    // true if the connections of the dispatcher are closed with the queue
+  private final ScheduledExecutorService executor;
+  private final long firstRetryDelay;
+  private final int maxAttempts;
+
+  /**
+   * Queue sending on a single connection of its own
+   * @param firstRetryDelay - Delay before the second attempt, in milliseconds - doubled for each next attempt
+   * @param maxAttempts - Maximum number of attempts to send an e-mail
+   */
+  public PolyspaceMailQueue(final long firstRetryDelay, final int maxAttempts) {
+    this(new PolyspaceMailDispatcher(1, 0, 1, 0), firstRetryDelay, maxAttempts);
+    ownDispatcher = true;
+  }
+
+  /**
+   * @param dispatcher - Sends the e-mails
+   * @param firstRetryDelay - Delay before the second attempt, in milliseconds - doubled for each next attempt
+   * @param maxAttempts - Maximum number of attempts to send an e-mail
+   */
+  public PolyspaceMailQueue(final PolyspaceMailDispatcher dispatcher, final long firstRetryDelay, final int maxAttempts) {
+    this.dispatcher = dispatcher;
+    this.firstRetryDelay = firstRetryDelay;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    // a single thread: the e-mails of the queue are sent one after the other
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "Polyspace Notification queue");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Queue {@code mails} to be sent as soon as possible
+   * @param session - Mail session of {@code mails}
+   * @param mails - E-mails to send
+   */
+  public void submit(final Session session, final List<Mail> mails) {
+    for (final Mail mail : mails) {
+      mail.listener.update(Status.QUEUED, 0, null);
+    }
+    executor.execute(() -> send(session, mails, 1));
+  }
+
+  /**
+   * @param round - Number of times {@code mails} have been handled, this one included: an e-mail is given up after
+   * {@link #maxAttempts} rounds, even if it was not tried in all of them
+   */
+  private void send(final Session session, final List<Mail> mails, final int round) {
+    final List<Mail> retries = new ArrayList<>();
+    String unreachable = null;    // error of the mail server: the next e-mails are not tried
+    for (final Mail mail : mails) {
+      String error = null;
+      boolean rejected = false;
+      if (unreachable != null) {
+        error = "Not tried, the mail server failed on a previous e-mail: " + unreachable;
+      } else {
+        mail.attempts++;
+        try {
+          // one attempt: a transient reply is tried again by this queue, without holding the e-mails of the other builds
+          dispatcher.trySend(session, mail.message);
+          mail.listener.update(Status.SENT, mail.attempts, null);
+          continue;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();   // the queue is shut down
+          return;
+        } catch (MessagingException | RuntimeException e) {
+          error = (e.getMessage() != null) ? e.getMessage() : e.toString();
+          rejected = (e instanceof SendFailedException) && !PolyspaceMailDispatcher.isTransient(e);
+          if (!rejected) {
+            // not reachable, or refusing e-mails for now: the next e-mails of the batch are tried later
+            unreachable = error;
+          }
+        }
+      }
+      if (rejected || (round >= maxAttempts)) {
+        mail.listener.update(Status.FAILED, mail.attempts, error);
+      } else {
+        mail.listener.update(Status.RETRYING, mail.attempts, error);
+        retries.add(mail);
+      }
+    }
+    if (!retries.isEmpty()) {
+      final long delay = firstRetryDelay << (round - 1);
+      executor.schedule(() -> send(session, retries, round + 1), delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stop sending the queued e-mails
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    if (ownDispatcher) {
+      dispatcher.shutdown();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Sends all the e-mails of a notification on a single connection to the mail server,
+ * instead of a connection per e-mail as {@link Transport#send} does.
+ * The connection is opened by the first e-mail, and opened again if the server closed it.
+ */
+public class PolyspaceMailSender implements Closeable {
+  private final Session session;
+  private Transport transport = null;
+  private boolean connected = false;   // not Transport.isConnected(), that costs a round trip to the SMTP server
+  private int sent = 0;
+  private int connections = 0;
+
+  /**
+   * @param session - Mail session, as created by {@code Mailer.descriptor().createSession()}
+   */
+  public PolyspaceMailSender(final Session session) {
+    this.session = session;
+  }
+
+  /** @return The session of the e-mails to send */
+  public Session getSession() { return session; }
+
+  /** @return The number of e-mails sent */
+  public int getSent() { return sent; }
+
+  /** @return {@code true} if the last connection to the mail server is open, without checking it with the server */
+  public boolean isConnected() { return connected; }
+
+  /** @return The number of connections opened to the mail server */
+  public int getConnections() { return connections; }
+
+  /**
+   * Send {@code msg} to all its recipients
+   * @param msg - The e-mail to send
+   * @throws MessagingException Error while sending {@code msg}
+   */
+  public void send(final MimeMessage msg) throws MessagingException {
+    msg.saveChanges();
+    final Address[] addresses = msg.getAllRecipients();
+    if ((addresses == null) || (addresses.length == 0)) {
+      throw new SendFailedException("No recipient addresses");
+    }
+    if (transport == null) {
+      transport = session.getTransport(addresses[0]);
+    }
+    if (!connected) {
+      connect();
+    }
+    try {
+      transport.sendMessage(msg, addresses);
+    } catch (SendFailedException e) {
+      // rejected addresses: sending again would fail the same way
+      throw e;
+    } catch (MessagingException e) {
+      // the server may have closed the connection since the previous e-mail: send again on a new connection
+      closeTransport();
+      connect();
+      transport.sendMessage(msg, addresses);
+    }
+    sent++;
+  }
+
+  private void connect() throws MessagingException {
+    transport.connect();
+    connected = true;
+    connections++;
+  }
+
+  private void closeTransport() {
+    connected = false;
+    try {
+      transport.close();
+    } catch (MessagingException e) {
+      // the connection is already lost
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (connected) {
+      connected = false;
+      try {
+        transport.close();
+      } catch (MessagingException e) {
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+  }
+}
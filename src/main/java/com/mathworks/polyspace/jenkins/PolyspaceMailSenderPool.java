@@ -0,0 +1,110 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import jakarta.mail.Session;
+
+/**
+ * Caps the number of e-mails sent at the same time: a thread takes one of the {@link PolyspaceMailSender} of the pool
+ * to send an e-mail, and gives it back once sent. Each sender keeps its own connection to the mail server.
+ */
+public class PolyspaceMailSenderPool implements Closeable {
+  private final Session session;
+  private final BlockingQueue<PolyspaceMailSender> idle;
+  private final List<PolyspaceMailSender> senders = new ArrayList<>();
+  private final int size;
+
+  /**
+   * @param session - Mail session, as created by {@code Mailer.descriptor().createSession()}
+   * @param size - Maximum number of e-mails sent at the same time
+   */
+  public PolyspaceMailSenderPool(final Session session, final int size) {
+    this.session = session;
+    this.size = Math.max(1, size);
+    this.idle = new ArrayBlockingQueue<>(this.size);
+  }
+
+  /** @return The session of the e-mails to send */
+  public Session getSession() { return session; }
+
+  /**
+   * @return A sender not used by another thread, to give back with {@link #release}
+   * @throws InterruptedException Interrupted while all the senders are used
+   */
+  public PolyspaceMailSender acquire() throws InterruptedException {
+    synchronized (senders) {
+      // connections are only opened when needed
+      if (idle.isEmpty() && (senders.size() < size)) {
+        final PolyspaceMailSender sender = new PolyspaceMailSender(session);
+        senders.add(sender);
+        return sender;
+      }
+    }
+    return idle.take();
+  }
+
+  /**
+   * @param sender - A sender obtained from {@link #acquire}
+   */
+  public void release(final PolyspaceMailSender sender) {
+    idle.add(sender);
+  }
+
+  /** @return The number of e-mails sent by all the senders */
+  public int getSent() {
+    synchronized (senders) {
+      return senders.stream().mapToInt(PolyspaceMailSender::getSent).sum();
+    }
+  }
+
+  /** @return The number of connections opened to the mail server by all the senders */
+  public int getConnections() {
+    synchronized (senders) {
+      return senders.stream().mapToInt(PolyspaceMailSender::getConnections).sum();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException error = null;
+    synchronized (senders) {
+      for (final PolyspaceMailSender sender : senders) {
+        try {
+          sender.close();
+        } catch (IOException e) {
+          error = e;
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+}
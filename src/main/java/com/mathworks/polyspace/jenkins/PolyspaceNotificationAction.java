@@ -0,0 +1,167 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.mathworks.polyspace.jenkins.config.Messages;
+
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import jenkins.util.Timer;
+
+/**
+ * Records on a build the delivery status of the Polyspace Notification e-mails sent in the background
+ */
+public class PolyspaceNotificationAction implements RunAction2 {
+  private static final Logger LOGGER = Logger.getLogger(PolyspaceNotificationAction.class.getName());
+
+  /**
+   * Delivery status of one e-mail
+   */
+  public static class Entry {
+    private final String owner;
+    private final String recipients;
+    private PolyspaceMailQueue.Status status = PolyspaceMailQueue.Status.QUEUED;
+    private int attempts = 0;
+    private String error = null;
+    private long time = System.currentTimeMillis();
+
+    public Entry(final String owner, final String recipients) {
+      this.owner = owner;
+      this.recipients = recipients;
+    }
+
+    public String getOwner() { return owner; }
+    public String getRecipients() { return recipients; }
+    public PolyspaceMailQueue.Status getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public String getError() { return error; }
+    public long getTime() { return time; }
+    public Date getDate() { return new Date(time); }
+  }
+
+  /** Delay between a status change and the save of the build, in seconds: the changes of this delay are saved together */
+  private static final long SAVE_DELAY = 5;
+
+  private final List<Entry> entries = new ArrayList<>();
+  private transient Run<?, ?> run;
+  private transient boolean saveScheduled = false;
+
+  /**
+   * @param owner - Owner of the e-mail, empty for the common e-mail
+   * @param recipients - Recipients of the e-mail
+   * @return The index of the new entry
+   */
+  public synchronized int add(final String owner, final String recipients) {
+    entries.add(new Entry(owner, recipients));
+    return entries.size() - 1;
+  }
+
+  public synchronized List<Entry> getEntries() {
+    return Collections.unmodifiableList(new ArrayList<>(entries));
+  }
+
+  /**
+   * @param status - Status to count
+   * @return The number of e-mails with this status
+   */
+  public synchronized int count(final PolyspaceMailQueue.Status status) {
+    return (int) entries.stream().filter(entry -> entry.status == status).count();
+  }
+
+  /**
+   * Update the status of an e-mail. The build is saved a few seconds later, with the other changes of these seconds,
+   * or right away once all the e-mails are sent or failed
+   * @param run - Build that sent the e-mail
+   * @param index - Index of the entry of the e-mail
+   * @param status - New status of the e-mail
+   * @param attempts - Number of attempts to send the e-mail so far
+   * @param error - Error of the last attempt, {@code null} if none
+   */
+  public static void update(final Run<?, ?> run, final int index, final PolyspaceMailQueue.Status status, final int attempts, final String error) {
+    final PolyspaceNotificationAction action = run.getAction(PolyspaceNotificationAction.class);
+    if (action == null) {
+      return;
+    }
+    final boolean done;
+    synchronized (action) {
+      final Entry entry = action.entries.get(index);
+      entry.status = status;
+      entry.attempts = attempts;
+      entry.error = error;
+      entry.time = System.currentTimeMillis();
+      done = action.entries.stream().allMatch(e -> (e.status == PolyspaceMailQueue.Status.SENT) || (e.status == PolyspaceMailQueue.Status.FAILED));
+    }
+    if (done) {
+      save(run);
+    } else if (status != PolyspaceMailQueue.Status.QUEUED) {
+      // queued: as saved when the action was added
+      action.scheduleSave(run);
+    }
+  }
+
+  private synchronized void scheduleSave(final Run<?, ?> run) {
+    if (!saveScheduled) {
+      saveScheduled = true;
+      Timer.get().schedule(() -> {
+        synchronized (this) {
+          saveScheduled = false;
+        }
+        save(run);
+      }, SAVE_DELAY, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void save(final Run<?, ?> run) {
+    try {
+      run.save();
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Cannot save the Polyspace Notification status of " + run, e);
+    }
+  }
+
+  public Run<?, ?> getRun() { return run; }
+
+  @Override
+  public void onAttached(final Run<?, ?> r) { run = r; }
+
+  @Override
+  public void onLoad(final Run<?, ?> r) { run = r; }
+
+  @Override
+  public String getIconFileName() { return "clipboard.png"; }
+
+  @Override
+  public String getDisplayName() { return Messages.polyspaceNotification(); }
+
+  @Override
+  public String getUrlName() { return "polyspace-notification"; }
+}
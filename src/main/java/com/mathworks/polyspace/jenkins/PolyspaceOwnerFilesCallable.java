@@ -0,0 +1,81 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+
+package com.mathworks.polyspace.jenkins;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+import hudson.remoting.Pipe;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Collects, in the JVM of the agent, the owner list of a report and the files of all its owners,
+ * and streams them to the controller as one zip (see {@link PolyspaceHelpersUtils#zipReportOwners}).
+ * Replaces a few remote calls per owner by a single one.
+ */
+class PolyspaceOwnerFilesCallable extends MasterToSlaveFileCallable<Integer> {
+  private static final long serialVersionUID = 1L;
+
+  private final Pipe pipe;
+  private final String report;
+  private final String[] others;
+
+  /**
+   * @param pipe - Pipe receiving the zip on the controller
+   * @param report - Report base name, relative to the workspace
+   * @param others - Other base names relative to the workspace, for instance the mail subject and body
+   */
+  PolyspaceOwnerFilesCallable(final Pipe pipe, final String report, final String... others) {
+    this.pipe = pipe;
+    this.report = report;
+    this.others = others;
+  }
+
+  @Override
+  public Integer invoke(final File workspace, final VirtualChannel channel) throws IOException, InterruptedException {
+    // the pipe is closed whatever happens, else the controller waits for the end of the zip forever
+    try (final OutputStream out = pipe.getOut()) {
+      final List<Path> otherPaths = new ArrayList<>();
+      for (final String other : others) {
+        if ((other != null) && !other.isEmpty()) {
+          otherPaths.add(Paths.get(other));
+        }
+      }
+      return new PolyspaceHelpersUtils().zipReportOwners(workspace.toPath(), Paths.get(report), otherPaths, new BufferedOutputStream(out));
+    } catch (InterruptedIOException | ClosedByInterruptException e) {
+      throw (InterruptedException) new InterruptedException(e.getMessage()).initCause(e);
+    }
+  }
+}
@@ -25,7 +25,10 @@ import org.kohsuke.stapler.*;
 
 import com.mathworks.polyspace.jenkins.config.Messages;
 import com.mathworks.polyspace.jenkins.utils.PolyspaceConfigUtils;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceDigestArchive;
 import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceMailTemplate;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceScratchArea;
 import com.mathworks.polyspace.jenkins.utils.PolyspaceUtils;
 
 import java.io.*;
@@ -34,11 +37,20 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import hudson.*;
 import hudson.tasks.*;          // The mailer
 import hudson.util.FormValidation;
 import hudson.model.*;
+import hudson.remoting.Pipe;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
 import jenkins.model.JenkinsLocationConfiguration;
 import jenkins.tasks.SimpleBuildStep;
 import org.apache.commons.lang.StringUtils;
@@ -65,7 +77,19 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
     private String queryBaseName;        /** query base name */
     private String mailSubjectBaseName;  /** base name of the file containing the mail subject. "" if generic subject is to be applied. file for a user is mailSubjectBaseName _ user . ext */
     private String mailBodyBaseName;     /** base name of the file containing the mail body. "" if generic body is to be applied. file for a user is mailBodyBaseName _ user . ext */
+    private String mailSubjectTemplate;  /** Mail subject of all owners, with placeholders such as ${owner}. "" if the mail subject comes from mailSubjectBaseName */
+    private String mailBodyTemplate;     /** Mail body of all owners, with placeholders such as ${owner} and ${count}. "" if the mail body comes from mailBodyBaseName */
     private String uniqueRecipients;     /** Unique recipient that receives all emails */
+    private boolean digest;              /** True if the unique recipient receives the attachments of all owners in one e-mail */
+    private int ownerConcurrency = 1;    /** Number of owners whose e-mail is prepared and sent at the same time */
+    private int mailConnections = 1;     /** Maximum number of connections to the mail server, that is of e-mails sent at the same time */
+    private boolean sendInBackground;    /** True if the e-mails are sent after the build by the queue of the controller */
+    private boolean bulkTransfer;        /** True if the files of all owners are copied from the agent in one zip */
+    private boolean streamAttachments;   /** True if the attachments are read from the agent while the e-mails are sent, without copy on the controller */
+    private Integer compressAttachmentsAbove = 10;   /** Attachments above this size, in MB, are sent compressed in a zip */
+    private int maxAttachmentSize = 10;  /** Attachments above this size, in MB, after compression, are split in parts sent in separate e-mails */
+
+    private static final long MB = 1024 * 1024;
 
     // The standard line ending for email messages, as defined by the Internet Message Format
     // standard (RFC 5322), is the sequence of carriage return (CR) followed by line feed (LF),
@@ -121,11 +145,93 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
       this.mailBodyBaseName = mailBodyBaseName;
     }
 
+    @DataBoundSetter
+    public void setMailSubjectTemplate(String mailSubjectTemplate) {
+      this.mailSubjectTemplate = mailSubjectTemplate;
+    }
+
+    @DataBoundSetter
+    public void setMailBodyTemplate(String mailBodyTemplate) {
+      this.mailBodyTemplate = mailBodyTemplate;
+    }
+
     @DataBoundSetter
     public void setUniqueRecipients(String uniqueRecipients) {
       this.uniqueRecipients = uniqueRecipients;
     }
 
+    @DataBoundSetter
+    public void setDigest(boolean digest) {
+      this.digest = digest;
+    }
+
+    public boolean isDigest() {
+      return digest;
+    }
+
+    @DataBoundSetter
+    public void setOwnerConcurrency(int ownerConcurrency) {
+      this.ownerConcurrency = ownerConcurrency;
+    }
+
+    public int getOwnerConcurrency() {
+      return Math.max(1, ownerConcurrency);   // 0 in configurations saved before this setting
+    }
+
+    @DataBoundSetter
+    public void setMailConnections(int mailConnections) {
+      this.mailConnections = mailConnections;
+    }
+
+    public int getMailConnections() {
+      return Math.max(1, mailConnections);
+    }
+
+    @DataBoundSetter
+    public void setSendInBackground(boolean sendInBackground) {
+      this.sendInBackground = sendInBackground;
+    }
+
+    public boolean isSendInBackground() {
+      return sendInBackground;
+    }
+
+    @DataBoundSetter
+    public void setBulkTransfer(boolean bulkTransfer) {
+      this.bulkTransfer = bulkTransfer;
+    }
+
+    public boolean isBulkTransfer() {
+      return bulkTransfer;
+    }
+
+    @DataBoundSetter
+    public void setStreamAttachments(boolean streamAttachments) {
+      this.streamAttachments = streamAttachments;
+    }
+
+    public boolean isStreamAttachments() {
+      return streamAttachments;
+    }
+
+    @DataBoundSetter
+    public void setCompressAttachmentsAbove(int compressAttachmentsAbove) {
+      this.compressAttachmentsAbove = compressAttachmentsAbove;
+    }
+
+    public int getCompressAttachmentsAbove() {
+      return (compressAttachmentsAbove == null) ? 10 : Math.max(0, compressAttachmentsAbove);   // null in configurations saved before this setting
+    }
+
+    @DataBoundSetter
+    public void setMaxAttachmentSize(int maxAttachmentSize) {
+      this.maxAttachmentSize = maxAttachmentSize;
+    }
+
+    public int getMaxAttachmentSize() {
+      return (maxAttachmentSize > 0) ? maxAttachmentSize : 10;   // 0 in configurations saved before this setting
+    }
+
     private JenkinsLocationConfiguration getJenkinsLocationConfiguration() {
         final JenkinsLocationConfiguration jlc = JenkinsLocationConfiguration.get();
         if (jlc == null) {
@@ -139,11 +245,173 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
                           @QueryParameter String text,
                           @QueryParameter String attachSource,
                           @QueryParameter String attachName
-                        ) throws IOException
+                        ) throws IOException, InterruptedException
+    {
+      try (PolyspaceScratchArea.Scratch scratch = PolyspaceScratchArea.get().open("sendMail")) {
+        final FilePath attachment = ((attachSource == null) || attachSource.isEmpty()) ? null : new FilePath(new File(attachSource));
+        sendMail(new SendingOutbox(Mailer.descriptor().createSession(), 1, scratch), 0, "", sendMailTo, subject, text, attachment, attachName);
+      }
+    }
+
+    /**
+     * Where the prepared e-mails go
+     */
+    private interface Outbox {
+      Session getSession();
+      /** @return The directory receiving the files copied from the agent, until the e-mails are sent */
+      PolyspaceScratchArea.Scratch getScratch();
+      /**
+       * @param position - Position of the e-mail in the build: 0 for the e-mails to the recipients, else 1 + index of the owner in the owner list
+       */
+      void send(int position, String owner, String sendMailTo, MimeMessage msg) throws IOException, InterruptedException, MessagingException;
+    }
+
+    /**
+     * Sends the e-mails right away, through the {@link PolyspaceMailDispatcher} of the controller
+     */
+    private static class SendingOutbox implements Outbox {
+      private final Session session;
+      private final Semaphore sending;    // caps the e-mails of this build sent at the same time
+      private final PolyspaceScratchArea.Scratch scratch;
+      private final AtomicInteger sent = new AtomicInteger();
+
+      SendingOutbox(Session session, int connections, PolyspaceScratchArea.Scratch scratch) {
+        this.session = session;
+        this.sending = new Semaphore(Math.max(1, connections));
+        this.scratch = scratch;
+      }
+
+      public Session getSession() { return session; }
+
+      public PolyspaceScratchArea.Scratch getScratch() { return scratch; }
+
+      int getSent() { return sent.get(); }
+
+      public void send(int position, String owner, String sendMailTo, MimeMessage msg) throws InterruptedException, MessagingException {
+        // the message is ready: only its sending waits for the rate limit and for a connection to the mail server
+        sending.acquire();
+        try {
+          PolyspaceMailDispatcher.get().send(session, msg);
+          sent.incrementAndGet();
+        } finally {
+          sending.release();
+        }
+      }
+    }
+
+    /**
+     * Keeps the e-mails, to hand them to the {@link PolyspaceMailQueue} once all are prepared
+     */
+    private static class QueueingOutbox implements Outbox {
+      /**
+       * E-mail kept until all are prepared
+       */
+      private static final class QueuedMail {
+        final int position;
+        final String owner;
+        final String sendMailTo;
+        final MimeMessage message;
+
+        QueuedMail(int position, String owner, String sendMailTo, MimeMessage message) {
+          this.position = position;
+          this.owner = owner;
+          this.sendMailTo = sendMailTo;
+          this.message = message;
+        }
+      }
+
+      private final Session session;
+      private final PolyspaceScratchArea.Scratch scratch;
+      private final List<QueuedMail> mails = new ArrayList<>();
+
+      QueueingOutbox(Session session, PolyspaceScratchArea.Scratch scratch) {
+        this.session = session;
+        this.scratch = scratch;
+      }
+
+      public Session getSession() { return session; }
+
+      public PolyspaceScratchArea.Scratch getScratch() { return scratch; }
+
+      public synchronized void send(int position, String owner, String sendMailTo, MimeMessage msg) {
+        mails.add(new QueuedMail(position, owner, sendMailTo, msg));
+      }
+
+      /**
+       * Queue the e-mails, and record their delivery status on {@code build}.
+       * The scratch directory is closed once all queued e-mails are sent or failed.
+       * @return The number of e-mails queued - if 0, the scratch directory is left to the caller
+       */
+      synchronized int submit(final Run<?,?> build) throws IOException {
+        if (mails.isEmpty()) {
+          return 0;
+        }
+        // owners are prepared in parallel: queue them in the order of the owner list, the common e-mail first,
+        // and the parts of an e-mail in their order - the sort is stable
+        mails.sort(Comparator.comparingInt(mail -> mail.position));
+
+        final PolyspaceNotificationAction action = new PolyspaceNotificationAction();
+        final String buildId = build.getExternalizableId();
+        final List<PolyspaceMailQueue.Mail> queued = new ArrayList<>();
+        final AtomicInteger pending = new AtomicInteger(mails.size());
+        for (final QueuedMail mail : mails) {
+          final int index = action.add(mail.owner, mail.sendMailTo);
+          queued.add(new PolyspaceMailQueue.Mail(mail.message, (status, attempts, error) -> {
+            final Run<?,?> run = Run.fromExternalizableId(buildId);
+            if (run != null) {
+              PolyspaceNotificationAction.update(run, index, status, attempts, error);
+            }
+            if (((status == PolyspaceMailQueue.Status.SENT) || (status == PolyspaceMailQueue.Status.FAILED))
+                && (pending.decrementAndGet() == 0)) {
+              closeScratch(scratch);
+            }
+          }));
+        }
+        build.addAction(action);
+        build.save();
+        PolyspaceMailQueue.get().submit(session, queued);
+        return queued.size();
+      }
+    }
+
+    private void sendMail(Outbox outbox, int position, String owner, String sendMailTo, String subject, String text, FilePath attachSource, String attachName) throws IOException, InterruptedException
     {
       try {
+        // one e-mail, or one e-mail per part of an attachment too large for one e-mail
+        final List<DataSource> attachments = getAttachments(outbox.getScratch(), attachSource, attachName);
+        if (attachments.size() <= 1) {
+          String note = "";
+          if (!attachments.isEmpty() && !attachments.get(0).getName().equals(attachName)) {
+            note = CRLF + CRLF + "The attached file " + attachName + " is compressed in " + attachments.get(0).getName() + CRLF;
+          }
+          final DataSource attachment = attachments.isEmpty() ? null : attachments.get(0);
+          outbox.send(position, owner, sendMailTo, createMessage(outbox, sendMailTo, subject, text + note, attachment));
+        } else {
+          final int parts = attachments.size();
+          final String first = attachments.get(0).getName();
+          final String joined = first.substring(0, first.lastIndexOf('.'));
+          final String note = CRLF + CRLF + "The attached file " + attachName
+            + (joined.equals(attachName) ? "" : " is compressed in " + joined + ",")
+            + " too large for one e-mail: it is split in " + parts + " parts, attached to " + parts + " e-mails." + CRLF
+            + "Join the parts before opening " + joined + ", for instance with:" + CRLF
+            + "  cat " + joined + ".* > " + joined + "  (Linux)" + CRLF
+            + "  copy /b " + joined + ".* " + joined + "  (Windows)" + CRLF;
+          for (int part = 0; part < parts; part++) {
+            final String partSubject = subject + " (part " + (part + 1) + " of " + parts + ")";
+            outbox.send(position, owner, sendMailTo, createMessage(outbox, sendMailTo, partSubject, text + note, attachments.get(part)));
+          }
+        }
+      } catch (RuntimeException | InterruptedException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e.getMessage());
+      }
+    }
+
+    private MimeMessage createMessage(Outbox outbox, String sendMailTo, String subject, String text, DataSource attachment) throws MessagingException, UnsupportedEncodingException
+    {
         String charset = Mailer.descriptor().getCharset();
-        MimeMessage msg = new MimeMessage(Mailer.descriptor().createSession());
+        MimeMessage msg = new MimeMessage(outbox.getSession());
         msg.setSubject(subject, charset);
         msg.setFrom(stringToAddress(getJenkinsLocationConfiguration().getAdminAddress(), charset));
 
@@ -162,32 +430,62 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
         // create the message body, with the text followed by the file to attach if any
         Multipart multipart = new MimeMultipart();
 
-        if (!attachName.isEmpty()) {
-          File file = new File(attachSource);
-          if (file.length()  > 10*1024*1024) {
-            // size of the attachement is too large
-            // do not attach, and add a message in the mail body
-            text += CRLF + CRLF + "Size of the attached file is too large  -  Not attached" + CRLF;
-          } else {
+        if (attachment != null) {
           MimeBodyPart attachmentBodyPart= new MimeBodyPart();
-          DataSource source = new FileDataSource(attachSource);
-          attachmentBodyPart.setDataHandler(new DataHandler(source));
-          attachmentBodyPart.setFileName(attachName);
+          attachmentBodyPart.setDataHandler(new DataHandler(attachment));
+          attachmentBodyPart.setFileName(attachment.getName());
+          // set here, else the attachment is read one more time to choose the encoding
+          attachmentBodyPart.setHeader("Content-Transfer-Encoding", "base64");
           multipart.addBodyPart(attachmentBodyPart);
         }
-        }
 
         MimeBodyPart textBodyPart = new MimeBodyPart();
         textBodyPart.setText(text, charset);
         multipart.addBodyPart(textBodyPart);
 
         msg.setContent(multipart);
-        Transport.send(msg);
-      } catch (RuntimeException e) {
-        throw e;
-      } catch (Exception e) {
-        throw new IOException(e.getMessage());
+        return msg;
+    }
+
+    /**
+     * An attachment on the agent that fits in one e-mail without compression is streamed from the agent when the e-mail is written.
+     * Attachments above compressAttachmentsAbove are compressed in a zip, streaming into {@code scratch}, unless already a zip.
+     * A zip still above maxAttachmentSize is split in numbered parts, read from the zip when the e-mails are written.
+     * @return The attachments, one per e-mail - empty if nothing to attach
+     */
+    private List<DataSource> getAttachments(PolyspaceScratchArea.Scratch scratch, FilePath attachSource, String attachName) throws IOException, InterruptedException
+    {
+      if ((attachSource == null) || attachName.isEmpty()) {
+        return Collections.emptyList();
+      }
+      if (attachSource.isRemote())
+      {
+        final long length = attachSource.length();
+        if ((length <= getCompressAttachmentsAbove() * MB) && (length <= getMaxAttachmentSize() * MB)) {
+          return Collections.singletonList(new PolyspaceFilePathDataSource(attachSource, attachName));
+        }
+        // compressed or split on the controller
+        attachSource = new FilePath(new File(getFileFromAgent(scratch, attachSource.getParent(), attachSource.getName())));
+      }
+      Path attachment = Paths.get(attachSource.getRemote());
+      String name = attachName;
+      if ((Files.size(attachment) > getCompressAttachmentsAbove() * MB) && !attachName.endsWith(".zip")) {
+        final Path zip = scratch.newDirectory().resolve(attachName + ".zip");
+        PolyspaceUtils.zipFile(attachment, attachName, zip);
+        name = attachName + ".zip";
+        attachment = scratch.add(zip, name);
+      }
+
+      final long size = Files.size(attachment);
+      final long max = getMaxAttachmentSize() * MB;
+      if (size <= max) {
+        return Collections.singletonList(new PolyspaceFileRangeDataSource(attachment, 0, size, name));
       }
+      final List<DataSource> parts = new ArrayList<>();
+      for (long offset = 0; offset < size; offset += max) {
+        parts.add(new PolyspaceFileRangeDataSource(attachment, offset, Math.min(max, size - offset), String.format("%s.%03d", name, parts.size() + 1)));
+      }
+      return parts;
     }
 
     // Move to utils
@@ -197,14 +495,17 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
       if (owner.isEmpty()) {
         fileName += name;
       } else {
-        fileName += name + polyspaceHelpersUtils.getReportOwner(Paths.get(name), owner);
+        fileName += polyspaceHelpersUtils.getReportOwner(Paths.get(name), owner);
       }
       // InputStream inputStream = new FileInputStream(fileName);
       // return IOUtils.toString(inputStream);
       return Files.readString(Paths.get(fileName));
     }
 
-    private String generateMailBody(final String body, final String owner, final String attachName, final String attachSource, FilePath workspace, Run<?,?> build) {
+    /**
+     * @param meta - Metadata of the attachment recorded when it was filtered, {@code null} if none: the findings are then counted in the attachment
+     */
+    private String generateMailBody(final String body, final String owner, final String attachName, final FilePath attachSource, final PolyspaceHelpersUtils.ReportOwnerMeta meta, FilePath workspace, Run<?,?> build) {
       try {
         if ((body != null) && !body.isEmpty()) {
           return getFilenameOwner(body, owner, workspace);
@@ -213,35 +514,34 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
         // Generate the generic mail body
       }
 
-      String text = "";
+      final StringBuilder text = new StringBuilder();
       if (owner.isEmpty()) {
-        text += "General email sent by Polyspace Jenkins Plugin" + CRLF + CRLF;
+        text.append("General email sent by Polyspace Jenkins Plugin").append(CRLF).append(CRLF);
       } else {
-        text += "Dear " + owner + "," + CRLF;
-        text += "Please find attached the findings you own." + CRLF + CRLF;
+        text.append("Dear ").append(owner).append(",").append(CRLF);
+        text.append("Please find attached the findings you own.").append(CRLF).append(CRLF);
       }
 
       if (!attachName.isEmpty()) {
-        text += "Please check attached file " + attachName + CRLF;
+        text.append("Please check attached file ").append(attachName).append(CRLF);
         try {
-          text += "It contains ";
-          text += polyspaceHelpersUtils.getCountFindings(Paths.get(attachSource));
-          text += " finding(s)" + CRLF;
+          final long findings = countFindings(attachSource, meta);
+          text.append("It contains ").append(findings).append(" finding(s)").append(CRLF);
         } catch (Exception e) {
-          text += "Cannot count nb of findings" + CRLF;
+          text.append("It contains Cannot count nb of findings").append(CRLF);
         }
-      } else if (!attachSource.isEmpty()) {
-        text += "Warning: Could not attach " + attachSource + CRLF;
+      } else if (attachSource != null) {
+        text.append("Warning: Could not attach ").append(attachSource.getRemote()).append(CRLF);
       }
 
-      text += CRLF;
-      text += "Check Jenkins console output at ";
-      text += getJenkinsLocationConfiguration().getUrl() + build.getUrl() + CRLF;
-      text += "Polyspace configuration is using" + CRLF;
+      text.append(CRLF);
+      text.append("Check Jenkins console output at ");
+      text.append(getJenkinsLocationConfiguration().getUrl()).append(build.getUrl()).append(CRLF);
+      text.append("Polyspace configuration is using").append(CRLF);
       if (!PolyspaceBuildWrapper.descriptor().getPolyspaceAccessURL().equals("POLYSPACE_ACCESS_URL_IS_UNSET")) {
-        text += "- Polyspace Access " + PolyspaceBuildWrapper.descriptor().getPolyspaceAccessURL() + CRLF;
+        text.append("- Polyspace Access ").append(PolyspaceBuildWrapper.descriptor().getPolyspaceAccessURL()).append(CRLF);
       }
-      return text;
+      return text.toString();
     }
 
     private String generateMailSubject(final String subject, final String owner, FilePath workspace, Run<?,?> build) {
@@ -253,51 +553,205 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
         // Generate the generic mail subject
       }
 
-      String text = "";
-      text += "Polyspace Jenkins Plugin";
-      text += " - " + build.getFullDisplayName();
-      text += " - " + build.getResult();
-      if (owner.isEmpty()) {
-        text += " - General Email";
-      } else {
-        text += " - Email to Finding Owners";
+      return "Polyspace Jenkins Plugin - " + build.getFullDisplayName() + " - " + build.getResult()
+        + (owner.isEmpty() ? " - General Email" : " - Email to Finding Owners");
+    }
+
+    /**
+     * Mail subject and mail body of the owners when given as templates, compiled once per build
+     */
+    private static final class OwnerTemplates {
+      private final PolyspaceMailTemplate subject;   // null if the mail subject comes from mailSubjectBaseName
+      private final PolyspaceMailTemplate body;      // null if the mail body comes from mailBodyBaseName
+      // the owners are prepared by a few threads: one buffer per thread, reused for all its owners
+      private final ThreadLocal<StringBuilder> buffer = ThreadLocal.withInitial(StringBuilder::new);
+
+      OwnerTemplates(String subject, String body) {
+        this.subject = ((subject == null) || subject.isEmpty()) ? null : PolyspaceMailTemplate.compile(subject);
+        this.body = ((body == null) || body.isEmpty()) ? null : PolyspaceMailTemplate.compile(body);
+      }
+
+      boolean uses(String name) {
+        return ((subject != null) && subject.uses(name)) || ((body != null) && body.uses(name));
       }
-      return text;
     }
 
-    private String getFileFromAgent(FilePath workspace, String fileToAttach) throws IOException, InterruptedException
+    /**
+     * @return The values of the placeholders of {@link OwnerTemplates} for {@code owner}
+     */
+    private Map<String, String> getTemplateValues(final OwnerTemplates templates, final String owner, final String attachName, final FilePath attachSource, final PolyspaceHelpersUtils.ReportOwnerMeta meta, final Run<?,?> build)
+    {
+      final Map<String, String> values = new HashMap<>();
+      values.put("owner", owner);
+      values.put("attachment", attachName);
+      if (templates.uses("count")) {
+        // only counted when used, the count may need to read the attachment
+        String count = "0";
+        if (!attachName.isEmpty()) {
+          try {
+            count = Long.toString(countFindings(attachSource, meta));
+          } catch (Exception e) {
+            count = "?";
+          }
+        }
+        values.put("count", count);
+      }
+      values.put("buildName", build.getFullDisplayName());
+      values.put("buildResult", String.valueOf(build.getResult()));
+      values.put("buildUrl", getJenkinsLocationConfiguration().getUrl() + build.getUrl());
+      final String accessUrl = PolyspaceBuildWrapper.descriptor().getPolyspaceAccessURL();
+      values.put("accessUrl", accessUrl.equals("POLYSPACE_ACCESS_URL_IS_UNSET") ? "" : accessUrl);
+      return values;
+    }
+
+    private String getFileFromAgent(PolyspaceScratchArea.Scratch scratch, FilePath workspace, String fileToAttach) throws IOException, InterruptedException
     {
       FilePath fileOnAgent = workspace.child(fileToAttach);
       if (fileOnAgent.exists())
       {
-        Path tempDir = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "polyspace-");
-        File fileOnController = new File(tempDir.toFile(), fileOnAgent.getName());
+        File fileOnController = new File(scratch.newDirectory().toFile(), fileOnAgent.getName());
         fileOnAgent.copyTo(new FilePath(fileOnController));
-        return fileOnController.toString();
+        return scratch.add(fileOnController.toPath(), fileOnAgent.getName()).toString();
+      } else {
+        return "";
+      }
+    }
+
+    /**
+     * Copy from the agent the owner list of queryBaseName and the attachment, mail subject and mail body of all owners,
+     * in one zip streamed by {@link PolyspaceOwnerFilesCallable}
+     * @return Directory in {@code scratch}, with the files at the same relative paths as in the workspace
+     */
+    private Path getOwnerFilesFromAgent(PolyspaceScratchArea.Scratch scratch, FilePath workspace) throws IOException, InterruptedException
+    {
+      final Path bundle = scratch.newDirectory();
+      try
+      {
+        final Pipe pipe = Pipe.createRemoteToLocal();
+        final Future<Integer> future = workspace.actAsync(new PolyspaceOwnerFilesCallable(pipe, queryBaseName,
+          isEmpty(mailSubjectTemplate) ? mailSubjectBaseName : "", isEmpty(mailBodyTemplate) ? mailBodyBaseName : ""));
+        IOException unzipError = null;
+        try (InputStream in = pipe.getIn())
+        {
+          new FilePath(bundle.toFile()).unzipFrom(in);
+        }
+        catch (IOException e)
+        {
+          unzipError = e;   // reported after the error of the agent, if any
+        }
+        try
+        {
+          future.get();
+        }
+        catch (ExecutionException e)
+        {
+          throw new IOException("Cannot copy the owner files from the agent: " + e.getCause().getMessage(), e.getCause());
+        }
+        if (unzipError != null)
+        {
+          throw unzipError;
+        }
+        return bundle;
+      }
+      catch (IOException | InterruptedException | RuntimeException e)
+      {
+        new FilePath(bundle.toFile()).deleteRecursive();
+        throw e;
+      }
+    }
+
+    /**
+     * Move a file out of the directory of {@link #getOwnerFilesFromAgent}, into the store of {@code scratch} like {@link #getFileFromAgent}
+     */
+    private static String getFileFromBundle(PolyspaceScratchArea.Scratch scratch, Path bundle, String fileToAttach) throws IOException
+    {
+      final Path file = bundle.resolve(fileToAttach);
+      if (Files.isRegularFile(file))
+      {
+        return scratch.add(file, String.valueOf(file.getFileName())).toString();
       } else {
         return "";
       }
     }
 
-    private void sendToRecipients(final Run<?,?> build, final FilePath workspace) throws IOException, InterruptedException
+    /**
+     * @param bundle - Directory of {@link #getOwnerFilesFromAgent}, {@code null} to read the attachment in the workspace
+     * @return The attachment, on the agent when streamed from it, else copied in {@code scratch} - {@code null} if it does not exist
+     */
+    private FilePath getAttachment(PolyspaceScratchArea.Scratch scratch, FilePath workspace, Path bundle, String fileToAttach) throws IOException, InterruptedException
+    {
+      final String attachSource;
+      if (bundle != null) {
+        attachSource = getFileFromBundle(scratch, bundle, fileToAttach);
+      } else if (streamAttachments && !sendInBackground) {
+        // the agent may be gone when the queue sends the e-mails: only streamed when sent during the build
+        final FilePath fileOnAgent = workspace.child(fileToAttach);
+        return fileOnAgent.exists() ? fileOnAgent : null;
+      } else {
+        attachSource = getFileFromAgent(scratch, workspace, fileToAttach);
+      }
+      return attachSource.isEmpty() ? null : new FilePath(new File(attachSource));
+    }
+
+    /**
+     * @return {@code true} if {@code meta} describes {@code attachSource}: same size, on the controller or on the agent,
+     * so that the metadata left by a previous build in a workspace that is not cleaned is not used
+     */
+    private static boolean isReportOwnerMetaOf(PolyspaceHelpersUtils.ReportOwnerMeta meta, FilePath attachSource) throws IOException, InterruptedException
+    {
+      return (meta != null) && (attachSource.length() == meta.getBytes());
+    }
+
+    private static long countFindings(FilePath attachSource, PolyspaceHelpersUtils.ReportOwnerMeta meta) throws IOException, InterruptedException
+    {
+      return isReportOwnerMetaOf(meta, attachSource) ? meta.getFindings() : attachSource.act(new CountFindings());
+    }
+
+    /**
+     * Counts the findings of a report where the report is
+     */
+    private static final class CountFindings extends MasterToSlaveFileCallable<Long> {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public Long invoke(File report, VirtualChannel channel) throws IOException {
+        return new PolyspaceHelpersUtils().getCountFindings(report.toPath());
+      }
+    }
+
+    private static boolean isEmpty(String s)
+    {
+      return (s == null) || s.isEmpty();
+    }
+
+    private static void closeScratch(PolyspaceScratchArea.Scratch scratch)
+    {
+      try {
+        scratch.close();
+      } catch (IOException e) {
+        // left in the scratch area, deleted when the controller restarts
+      }
+    }
+
+    private void sendToRecipients(final Outbox outbox, final Run<?,?> build, final FilePath workspace) throws IOException, InterruptedException
     {
       FormValidation fileToAttachValidation = polyspaceConfigUtils.doCheckFilename(fileToAttach);
 
       if (fileToAttachValidation == FormValidation.ok())
       {
-        String attachSource = "";
+        FilePath attachSource = null;
         String attachName = "";
 
         if ((fileToAttach != null) && !fileToAttach.isEmpty())
         {
-          attachSource = getFileFromAgent(workspace, fileToAttach);
-          attachName = new File(attachSource).getName();
+          attachSource = getAttachment(outbox.getScratch(), workspace, null, fileToAttach);
+          attachName = (attachSource == null) ? "" : attachSource.getName();
         }
 
         final String subject = generateMailSubject(mailSubject, "", workspace, build);
-        final String body = generateMailBody(mailBody, "", attachName, attachSource, workspace, build);
+        final String body = generateMailBody(mailBody, "", attachName, attachSource, null, workspace, build);
 
-        sendMail(recipients, subject, body, attachSource, attachName);
+        sendMail(outbox, 0, "", recipients, subject, body, attachSource, attachName);
       }
       else
       {
@@ -307,43 +761,262 @@ public class PolyspacePostBuildActions extends Notifier implements SimpleBuildSt
       }
     }
 
-    private void sendToOwners(final Run<?,?> build, final FilePath workspace) throws IOException, InterruptedException
+    private void sendToOwners(final Outbox outbox, final Run<?,?> build, final FilePath workspace, final TaskListener listener) throws IOException, InterruptedException
+    {
+      final String ownerListName = polyspaceHelpersUtils.getReportOwnerList(Paths.get(queryBaseName)).toString();
+      final String ownerMetaName = polyspaceHelpersUtils.getReportOwnerMeta(Paths.get(queryBaseName)).toString();
+      if (!bulkTransfer)
+      {
+        final String ownerList = getFileFromAgent(outbox.getScratch(), workspace, ownerListName);
+        if (!ownerList.isEmpty())
+        {
+          // the finding counts of the owners, recorded when filtering, so that the attachments are not read again
+          final String ownerMeta = getFileFromAgent(outbox.getScratch(), workspace, ownerMetaName);
+          final Map<String, PolyspaceHelpersUtils.ReportOwnerMeta> metas = ownerMeta.isEmpty() ? Collections.emptyMap()
+            : polyspaceHelpersUtils.readReportOwnerMeta(Paths.get(ownerMeta));
+          sendToOwners(outbox, Files.readAllLines(Paths.get(ownerList)), metas, null, build, workspace, listener);
+        }
+        return;
+      }
+
+      final Path bundle = getOwnerFilesFromAgent(outbox.getScratch(), workspace);
+      try
+      {
+        final Path ownerList = bundle.resolve(ownerListName);
+        if (Files.isRegularFile(ownerList))
+        {
+          sendToOwners(outbox, Files.readAllLines(ownerList), polyspaceHelpersUtils.readReportOwnerMeta(bundle.resolve(ownerMetaName)), bundle, build, workspace, listener);
+        }
+      }
+      finally
+      {
+        new FilePath(bundle.toFile()).deleteRecursive();
+      }
+    }
+
+    /**
+     * @param metas - Metadata of the attachments of the owners, see {@link PolyspaceHelpersUtils#readReportOwnerMeta}
+     * @param bundle - Directory of {@link #getOwnerFilesFromAgent}, {@code null} to copy the files of each owner from the agent
+     */
+    private void sendToOwners(final Outbox outbox, final List<String> owners, final Map<String, PolyspaceHelpersUtils.ReportOwnerMeta> metas, final Path bundle, final Run<?,?> build, final FilePath workspace, final TaskListener listener) throws IOException, InterruptedException
     {
-      String ownerList = getFileFromAgent(workspace, polyspaceHelpersUtils.getReportOwnerList(Paths.get(queryBaseName)).toString());
+      if (digest && !uniqueRecipients.isEmpty())
+      {
+        sendDigest(outbox, owners, metas, bundle, build, workspace);
+        return;
+      }
 
-      if (!ownerList.isEmpty())
+      // The e-mails of the owners are prepared and sent by up to ownerConcurrency threads.
+      // The results are logged in the order of the owners, whatever the order in which they complete.
+      final int concurrency = Math.min(getOwnerConcurrency(), Math.max(1, owners.size()));
+      final OwnerTemplates templates = new OwnerTemplates(mailSubjectTemplate, mailBodyTemplate);
+      final ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+        final Thread thread = new Thread(runnable, "Polyspace Notification " + build.getFullDisplayName());
+        thread.setDaemon(true);
+        return thread;
+      });
+      try
       {
-        final String ownerListContent = PolyspaceUtils.getFileContent(Paths.get(ownerList));
+        final List<Future<?>> results = new ArrayList<>();
+        for (int o = 0; o < owners.size(); o++)
+        {
+          final String owner = owners.get(o);
+          final int position = o + 1;
+          results.add(executor.submit(() -> {
+            sendToOwner(outbox, position, owner, metas.get(owner), templates, bundle, build, workspace);
+            return null;
+          }));
+        }
 
-        try (final Scanner ownerListScanner = new Scanner(ownerListContent))
+        int failures = 0;
+        for (int o = 0; o < owners.size(); o++)
         {
-          while (ownerListScanner.hasNextLine())
+          try
           {
-            final String owner = ownerListScanner.nextLine();
-            final String recipient = uniqueRecipients.isEmpty() ? owner : uniqueRecipients;
+            results.get(o).get();
+          }
+          catch (ExecutionException e)
+          {
+            failures++;
+            final Throwable cause = e.getCause();
+            listener.error("Polyspace Notification: cannot send e-mail to owner '" + owners.get(o) + "': "
+              + ((cause.getMessage() != null) ? cause.getMessage() : cause.toString()));
+          }
+        }
+        if (failures > 0)
+        {
+          throw new AbortException(Messages.errorSendingMail() + " " + failures + " of " + owners.size() + " owner(s) failed");
+        }
+      }
+      finally
+      {
+        executor.shutdownNow();
+      }
+    }
+
+    private void sendToOwner(final Outbox outbox, final int position, final String owner, final PolyspaceHelpersUtils.ReportOwnerMeta meta, final OwnerTemplates templates, final Path bundle, final Run<?,?> build, final FilePath workspace) throws IOException, InterruptedException
+    {
+      final String recipient = uniqueRecipients.isEmpty() ? owner : uniqueRecipients;
 
-            final String attachSource = getFileFromAgent(workspace, polyspaceHelpersUtils.getReportOwner(Paths.get(queryBaseName), owner).toString());
-            final String attachName = new File(attachSource).getName();
+      final String attachFile = polyspaceHelpersUtils.getReportOwner(Paths.get(queryBaseName), owner).toString();
+      final FilePath attachSource = getAttachment(outbox.getScratch(), workspace, bundle, attachFile);
+      final String attachName = (attachSource == null) ? "" : attachSource.getName();
 
-            final String subject = generateMailSubject(mailSubjectBaseName, owner, workspace, build);
-            final String body = generateMailBody(mailBodyBaseName, owner, attachName, attachSource, workspace, build);
+      // the mail subject and body are rendered from the templates, else read in the workspace or in the bundle that contains them
+      final Map<String, String> values = ((templates.subject != null) || (templates.body != null))
+        ? getTemplateValues(templates, owner, attachName, attachSource, meta, build) : null;
+      final FilePath files = (bundle == null) ? workspace : new FilePath(bundle.toFile());
+      final String subject = (templates.subject != null) ? templates.subject.render(values::get, templates.buffer.get())
+        : generateMailSubject(mailSubjectBaseName, owner, files, build);
+      final String body = (templates.body != null) ? templates.body.render(values::get, templates.buffer.get())
+        : generateMailBody(mailBodyBaseName, owner, attachName, attachSource, meta, files, build);
 
-            sendMail(recipient, subject, body, attachSource, attachName);
+      sendMail(outbox, position, owner, recipient, subject, body, attachSource, attachName);
+    }
+
+    /**
+     * Send the attachments of all owners to uniqueRecipients in zips, one e-mail per zip, with the list of the owners and of their attachments in the mail body.
+     * A zip is completed with the attachments of the next owners up to maxAttachmentSize, see {@link PolyspaceDigestArchive}.
+     */
+    private void sendDigest(final Outbox outbox, final List<String> owners, final Map<String, PolyspaceHelpersUtils.ReportOwnerMeta> metas, final Path bundle, final Run<?,?> build, final FilePath workspace) throws IOException, InterruptedException
+    {
+      if (owners.isEmpty())
+      {
+        return;
+      }
+      final List<StringBuilder> indexes = new ArrayList<>();   // owners of each zip
+      final long[] findings = new long[owners.size() + 1];     // findings of each zip, starting from 1
+      final List<String> missing = new ArrayList<>();          // owners without attachment
+      final PolyspaceDigestArchive archive = new PolyspaceDigestArchive(outbox.getScratch().newDirectory(), "Polyspace_Digest", getMaxAttachmentSize() * MB);
+      try (archive)
+      {
+        for (final String owner : owners)
+        {
+          final String attachFile = polyspaceHelpersUtils.getReportOwner(Paths.get(queryBaseName), owner).toString();
+          final FilePath attachSource = getAttachment(outbox.getScratch(), workspace, bundle, attachFile);
+          if (attachSource == null)
+          {
+            missing.add(owner);
+            continue;
           }
+          final long count = countFindings(attachSource, metas.get(owner));
+          final int zip;
+          try (InputStream in = attachSource.read())
+          {
+            zip = archive.add(attachSource.getName(), in, attachSource.length());
+          }
+          if (indexes.size() < zip)
+          {
+            indexes.add(new StringBuilder());
+          }
+          indexes.get(zip - 1).append("- ").append(owner).append(": ").append(attachSource.getName())
+            .append(", ").append(count).append(" finding(s)").append(CRLF);
+          findings[zip] += count;
         }
       }
+
+      final String subject = "Polyspace Jenkins Plugin - " + build.getFullDisplayName() + " - " + build.getResult()
+        + " - Digest of the Emails to " + owners.size() + " Finding Owner(s)";
+      final List<Path> zips = archive.getArchives();
+      for (int zip = 0; zip < Math.max(1, zips.size()); zip++)
+      {
+        final StringBuilder body = new StringBuilder();
+        body.append("Digest of the e-mails to the finding owners sent by Polyspace Jenkins Plugin").append(CRLF).append(CRLF);
+        FilePath attachSource = null;
+        String attachName = "";
+        if (!zips.isEmpty())
+        {
+          attachName = String.valueOf(zips.get(zip).getFileName());
+          attachSource = new FilePath(outbox.getScratch().add(zips.get(zip), attachName).toFile());
+          body.append("The attached file ").append(attachName).append(" contains the findings of each owner, ")
+            .append(findings[zip + 1]).append(" finding(s) in all:").append(CRLF);
+          body.append(indexes.get(zip)).append(CRLF);
+        }
+        if (!missing.isEmpty() && (zip == 0))
+        {
+          body.append("No attachment for ").append(String.join(", ", missing)).append(CRLF).append(CRLF);
+        }
+        body.append("Check Jenkins console output at ").append(getJenkinsLocationConfiguration().getUrl()).append(build.getUrl()).append(CRLF);
+        final String zipSubject = (zips.size() > 1) ? subject + " " + (zip + 1) + " of " + zips.size() : subject;
+        sendMail(outbox, 0, "", uniqueRecipients, zipSubject, body.toString(), attachSource, attachName);
+      }
     }
 
     public void perform(Run<?,?> build, FilePath workspace, Launcher launcher, TaskListener listener) throws IOException, InterruptedException
+    {
+      if (sendInBackground)
+      {
+        // The e-mails are prepared, with their attachments copied on the controller, then sent after the build
+        final PolyspaceScratchArea.Scratch scratch = PolyspaceScratchArea.get().open(build.getExternalizableId());
+        final QueueingOutbox outbox = new QueueingOutbox(Mailer.descriptor().createSession(), scratch);
+        int queued = 0;
+        Exception failure = null;   // reported once the e-mails prepared for the other owners are queued
+        try
+        {
+          try
+          {
+            send(outbox, build, workspace, listener);
+          }
+          catch (IOException | RuntimeException e)
+          {
+            failure = e;
+          }
+          queued = outbox.submit(build);
+        }
+        finally
+        {
+          if (queued == 0)
+          {
+            scratch.close();   // else closed by the queue once the e-mails are sent
+          }
+        }
+        if (queued > 0)
+        {
+          listener.getLogger().println("Polyspace Notification: " + queued + " e-mail(s) queued, see their delivery status in the Polyspace Notification page of the build");
+        }
+        if (failure instanceof IOException)
+        {
+          throw (IOException) failure;
+        }
+        if (failure != null)
+        {
+          throw (RuntimeException) failure;
+        }
+        return;
+      }
+
+      // At most mailConnections e-mails are sent at the same time, on the connections to the mail server shared by the builds
+      final long start = System.nanoTime();
+      try (PolyspaceScratchArea.Scratch scratch = PolyspaceScratchArea.get().open(build.getExternalizableId()))
+      {
+        final SendingOutbox outbox = new SendingOutbox(Mailer.descriptor().createSession(), getMailConnections(), scratch);
+        try
+        {
+          send(outbox, build, workspace, listener);
+        }
+        finally
+        {
+          final int sent = outbox.getSent();
+          if (sent > 0)
+          {
+            final long elapsed = (System.nanoTime() - start) / 1000000;
+            listener.getLogger().println("Polyspace Notification: " + sent + " e-mail(s) sent in " + elapsed + " ms ("
+              + (elapsed / sent) + " ms per e-mail, up to " + getMailConnections() + " at the same time)");
+          }
+        }
+      }
+    }
+
+    private void send(final Outbox outbox, final Run<?,?> build, final FilePath workspace, final TaskListener listener) throws IOException, InterruptedException
     {
       if (sendToRecipients && (recipients != null) && !recipients.isEmpty())
       {
-        sendToRecipients(build, workspace);
+        sendToRecipients(outbox, build, workspace);
       }
 
       if (sendToOwners && (queryBaseName != null) && !queryBaseName.isEmpty())
       {
-        sendToOwners(build, workspace);
+        sendToOwners(outbox, build, workspace, listener);
       }
     }
 
@@ -31,4 +31,9 @@ public class PolyspaceConstants {
     public static final String POLYSPACE_ACCESS_HOST      = "POLYSPACE_ACCESS_HOST";        // host of Access
     public static final String POLYSPACE_ACCESS_PORT      = "POLYSPACE_ACCESS_PORT";        // port of Access
     public static final String POLYSPACE_ACCESS_URL       = "POLYSPACE_ACCESS_URL";         // <protocol>://<host>:<port>
+
+    // ps_helper server oriented variables
+    public static final String PS_HELPER_SOCKET           = "ps_helper_socket";             // socket of the ps_helper server of the build
+    public static final String PS_HELPER_SERVER           = "ps_helper_server";             // starts the ps_helper server
+    public static final String PS_HELPER_CLIENT           = "ps_helper_client";             // runs a ps_helper command in the server
 }
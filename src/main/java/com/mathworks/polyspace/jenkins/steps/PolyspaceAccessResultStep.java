@@ -0,0 +1,136 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.steps;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.mathworks.polyspace.jenkins.config.Messages;
+import com.mathworks.polyspace.jenkins.constants.PolyspaceConstants;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Pipeline step reading the output of {@code polyspace-access -upload}, as {@code ps_helper -print-runid},
+ * {@code -print-projectid} and {@code -print-projecturl} do, in a single read of the output.
+ * It returns a map with the "runId", the "projectId" and, when the URL of Polyspace Access is known, the "url" of the project:
+ * {@code def result = polyspaceAccessResult output: 'upload_out'}
+ */
+public class PolyspaceAccessResultStep extends Step {
+  private final String output;
+  private String accessUrl = "";
+
+  @DataBoundConstructor
+  public PolyspaceAccessResultStep(final String output) {
+    this.output = output;
+  }
+
+  public String getOutput() { return output; }
+  public String getAccessUrl() { return accessUrl; }
+
+  /** @param accessUrl - URL of Polyspace Access, POLYSPACE_ACCESS_URL of the build by default */
+  @DataBoundSetter
+  public void setAccessUrl(final String accessUrl) { this.accessUrl = Util.fixNull(accessUrl); }
+
+  @Override
+  public StepExecution start(final StepContext context) throws Exception {
+    return new Execution(output, accessUrl, context);
+  }
+
+  private static class Execution extends SynchronousNonBlockingStepExecution<Map<String, String>> {
+    private static final long serialVersionUID = 1L;
+    private final String output;
+    private final String accessUrl;
+
+    Execution(final String output, final String accessUrl, final StepContext context) {
+      super(context);
+      this.output = output;
+      this.accessUrl = accessUrl;
+    }
+
+    @Override
+    protected Map<String, String> run() throws Exception {
+      final FilePath workspace = getContext().get(FilePath.class);
+      String url = accessUrl;
+      if (url.isEmpty()) {
+        final EnvVars env = getContext().get(EnvVars.class);
+        url = (env != null) ? Util.fixNull(env.get(PolyspaceConstants.POLYSPACE_ACCESS_URL)) : "";
+      }
+      return workspace.child(output).act(new AccessResultCallable(url));
+    }
+  }
+
+  private static class AccessResultCallable extends PolyspaceReportCallable<Map<String, String>> {
+    private static final long serialVersionUID = 1L;
+    private final String accessUrl;
+
+    AccessResultCallable(final String accessUrl) {
+      this.accessUrl = accessUrl;
+    }
+
+    @Override
+    Map<String, String> call(final PolyspaceHelpersUtils utils, final Path output) throws IOException {
+      final PolyspaceHelpersUtils.AccessUploadResult result = utils.getAccessUploadResult(output);
+      if (result.runId.isEmpty())
+      {
+        throw new RuntimeException("Cannot find runId in '" + output + "'");
+      }
+      final Map<String, String> values = new LinkedHashMap<>();
+      values.put("runId", result.runId);
+      values.put("projectId", result.projectId);
+      if (!accessUrl.isEmpty()) {
+        values.put("url", utils.getAccessResultUrl(result, accessUrl));
+      }
+      return values;
+    }
+  }
+
+  @Extension
+  public static class DescriptorImpl extends StepDescriptor {
+    @Override
+    public Set<? extends Class<?>> getRequiredContext() { return Set.of(FilePath.class); }
+
+    @Override
+    public String getFunctionName() { return "polyspaceAccessResult"; }
+
+    @Nonnull
+    @Override
+    public String getDisplayName() { return Messages.polyspaceAccessResultStep(); }
+  }
+}
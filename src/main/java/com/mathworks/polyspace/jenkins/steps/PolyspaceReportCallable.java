@@ -0,0 +1,60 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.steps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Runs a {@link PolyspaceHelpersUtils} operation on a report, in the JVM of the agent holding the report.
+ * When the build is aborted, the interruption of the step is forwarded to the agent and stops the scan of the report.
+ * @param <T> - Type of the result returned to the Pipeline
+ */
+abstract class PolyspaceReportCallable<T> extends MasterToSlaveFileCallable<T> {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * @param utils - Helpers running the operation
+   * @param report - Path to the report on the agent
+   * @return The result of the operation
+   * @throws IOException Error while accessing {@code report}
+   */
+  abstract T call(PolyspaceHelpersUtils utils, Path report) throws IOException;
+
+  @Override
+  public final T invoke(final File report, final VirtualChannel channel) throws IOException, InterruptedException {
+    try {
+      return call(new PolyspaceHelpersUtils(), report.toPath());
+    } catch (InterruptedIOException | ClosedByInterruptException e) {
+      throw (InterruptedException) new InterruptedException(e.getMessage()).initCause(e);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.steps;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.mathworks.polyspace.jenkins.config.Messages;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+import hudson.Extension;
+import hudson.FilePath;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Pipeline step returning the number of findings of a report, as {@code ps_helper -report-count-findings} does,
+ * but without starting a process: {@code def count = polyspaceReportCount report: 'Results_List.tsv'}
+ */
+public class PolyspaceReportCountStep extends Step {
+  private final String report;
+
+  @DataBoundConstructor
+  public PolyspaceReportCountStep(final String report) {
+    this.report = report;
+  }
+
+  public String getReport() { return report; }
+
+  @Override
+  public StepExecution start(final StepContext context) throws Exception {
+    return new Execution(report, context);
+  }
+
+  private static class Execution extends SynchronousNonBlockingStepExecution<Long> {
+    private static final long serialVersionUID = 1L;
+    private final String report;
+
+    Execution(final String report, final StepContext context) {
+      super(context);
+      this.report = report;
+    }
+
+    @Override
+    protected Long run() throws Exception {
+      final FilePath workspace = getContext().get(FilePath.class);
+      return workspace.child(report).act(new CountCallable());
+    }
+  }
+
+  private static class CountCallable extends PolyspaceReportCallable<Long> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    Long call(final PolyspaceHelpersUtils utils, final Path report) throws IOException {
+      return utils.getCountFindings(report);
+    }
+  }
+
+  @Extension
+  public static class DescriptorImpl extends StepDescriptor {
+    @Override
+    public Set<? extends Class<?>> getRequiredContext() { return Set.of(FilePath.class); }
+
+    @Override
+    public String getFunctionName() { return "polyspaceReportCount"; }
+
+    @Nonnull
+    @Override
+    public String getDisplayName() { return Messages.polyspaceReportCountStep(); }
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.steps;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.mathworks.polyspace.jenkins.config.Messages;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Pipeline step filtering a report into the report of an owner, as {@code ps_helper -report-filter} does,
+ * but without starting a process. It returns the number of findings added to the filtered report:
+ * <pre>
+ * def count = polyspaceReportFilter report: 'Results_List.tsv', filteredReport: 'Results_Users.tsv', owner: 'userA', filters: ['Family', 'Defect']
+ * def count = polyspaceReportFilter report: 'Results_List.tsv', filteredReport: 'Results_Users.tsv', owner: 'userB', where: "Family = Defect and Information ~ 'Impact: High'"
+ * </pre>
+ */
+public class PolyspaceReportFilterStep extends Step {
+  private final String report;
+  private final String filteredReport;
+  private String owner = "";
+  private List<String> filters = new ArrayList<>();
+  private String where = "";
+
+  @DataBoundConstructor
+  public PolyspaceReportFilterStep(final String report, final String filteredReport) {
+    this.report = report;
+    this.filteredReport = filteredReport;
+  }
+
+  public String getReport() { return report; }
+  public String getFilteredReport() { return filteredReport; }
+  public String getOwner() { return owner; }
+  public List<String> getFilters() { return filters; }
+  public String getWhere() { return where; }
+
+  @DataBoundSetter
+  public void setOwner(final String owner) { this.owner = Util.fixNull(owner); }
+
+  /** @param filters - "key" "value" pairs, as for {@code ps_helper -report-filter} */
+  @DataBoundSetter
+  public void setFilters(final List<String> filters) { this.filters = (filters == null) ? new ArrayList<>() : new ArrayList<>(filters); }
+
+  /** @param where - Filter expression, as for {@code ps_helper -report-filter ... -where} */
+  @DataBoundSetter
+  public void setWhere(final String where) { this.where = Util.fixNull(where); }
+
+  @Override
+  public StepExecution start(final StepContext context) throws Exception {
+    if (!where.isEmpty() && !filters.isEmpty()) {
+      throw new AbortException("Use either filters or where, not both");
+    }
+    final String[] stepFilters = where.isEmpty() ? filters.toArray(new String[0]) : new String[] { PolyspaceHelpersUtils.FILTER_EXPRESSION, where };
+    return new Execution(report, filteredReport, owner, stepFilters, context);
+  }
+
+  private static class Execution extends SynchronousNonBlockingStepExecution<Long> {
+    private static final long serialVersionUID = 1L;
+    private final String report;
+    private final String filteredReport;
+    private final String owner;
+    private final String[] filters;
+
+    Execution(final String report, final String filteredReport, final String owner, final String[] filters, final StepContext context) {
+      super(context);
+      this.report = report;
+      this.filteredReport = filteredReport;
+      this.owner = owner;
+      this.filters = filters;
+    }
+
+    @Override
+    protected Long run() throws Exception {
+      final FilePath workspace = getContext().get(FilePath.class);
+      return workspace.child(report).act(new FilterCallable(workspace.child(filteredReport).getRemote(), owner, filters));
+    }
+  }
+
+  private static class FilterCallable extends PolyspaceReportCallable<Long> {
+    private static final long serialVersionUID = 1L;
+    private final String filteredReport;
+    private final String owner;
+    private final String[] filters;
+
+    FilterCallable(final String filteredReport, final String owner, final String[] filters) {
+      this.filteredReport = filteredReport;
+      this.owner = owner;
+      this.filters = filters;
+    }
+
+    @Override
+    Long call(final PolyspaceHelpersUtils utils, final Path report) throws IOException {
+      return utils.reportFilter(report, Paths.get(filteredReport), owner, filters);
+    }
+  }
+
+  @Extension
+  public static class DescriptorImpl extends StepDescriptor {
+    @Override
+    public Set<? extends Class<?>> getRequiredContext() { return Set.of(FilePath.class); }
+
+    @Override
+    public String getFunctionName() { return "polyspaceReportFilter"; }
+
+    @Nonnull
+    @Override
+    public String getDisplayName() { return Messages.polyspaceReportFilterStep(); }
+  }
+}
@@ -0,0 +1,109 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.steps;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.mathworks.polyspace.jenkins.config.Messages;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
+
+import hudson.Extension;
+import hudson.FilePath;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Pipeline step returning "SUCCESS" when a report has at most {@code max} findings and "UNSTABLE" otherwise,
+ * as {@code ps_helper -report-status} does: {@code def status = polyspaceReportStatus report: 'Results_List.tsv', max: 10}
+ */
+public class PolyspaceReportStatusStep extends Step {
+  private final String report;
+  private final long max;
+
+  @DataBoundConstructor
+  public PolyspaceReportStatusStep(final String report, final long max) {
+    this.report = report;
+    this.max = max;
+  }
+
+  public String getReport() { return report; }
+  public long getMax() { return max; }
+
+  @Override
+  public StepExecution start(final StepContext context) throws Exception {
+    return new Execution(report, max, context);
+  }
+
+  private static class Execution extends SynchronousNonBlockingStepExecution<String> {
+    private static final long serialVersionUID = 1L;
+    private final String report;
+    private final long max;
+
+    Execution(final String report, final long max, final StepContext context) {
+      super(context);
+      this.report = report;
+      this.max = max;
+    }
+
+    @Override
+    protected String run() throws Exception {
+      final FilePath workspace = getContext().get(FilePath.class);
+      return workspace.child(report).act(new StatusCallable(max));
+    }
+  }
+
+  private static class StatusCallable extends PolyspaceReportCallable<String> {
+    private static final long serialVersionUID = 1L;
+    private final long max;
+
+    StatusCallable(final long max) {
+      this.max = max;
+    }
+
+    @Override
+    String call(final PolyspaceHelpersUtils utils, final Path report) throws IOException {
+      return utils.getReportStatus(report, max);
+    }
+  }
+
+  @Extension
+  public static class DescriptorImpl extends StepDescriptor {
+    @Override
+    public Set<? extends Class<?>> getRequiredContext() { return Set.of(FilePath.class); }
+
+    @Override
+    public String getFunctionName() { return "polyspaceReportStatus"; }
+
+    @Nonnull
+    @Override
+    public String getDisplayName() { return Messages.polyspaceReportStatusStep(); }
+  }
+}
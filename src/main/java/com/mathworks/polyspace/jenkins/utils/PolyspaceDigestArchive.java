@@ -0,0 +1,129 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zips of the attachments of many owners, for a digest e-mail.
+ * The files are compressed as they are added, in the current zip until it would go above a size cap,
+ * then in a new zip: each zip can be sent and opened alone.
+ * The compressed size of the next file is estimated from the compression ratio of the files already added,
+ * so that a zip may still end above the cap, for instance with a single file larger than the cap.
+ */
+public final class PolyspaceDigestArchive implements Closeable {
+  private final Path directory;
+  private final String name;
+  private final long cap;
+  private final List<Path> archives = new ArrayList<>();
+  private ZipOutputStream zip;      // current zip, null before the first file
+  private long zipEntries;          // number of files in the current zip
+  private long zipBytes;            // bytes written in the current zip, for the files already closed
+  private long totalCompressed;     // compressed bytes of all the files added, for the ratio
+  private long totalUncompressed;   // uncompressed bytes of all the files added, for the ratio
+
+  /**
+   * @param directory - Directory receiving the zips: {@code name.zip}, then {@code name_2.zip}, {@code name_3.zip}...
+   * @param name - Base name of the zips
+   * @param cap - Size in bytes above which a zip is not completed with more files
+   */
+  public PolyspaceDigestArchive(final Path directory, final String name, final long cap) {
+    this.directory = directory;
+    this.name = name;
+    this.cap = cap;
+  }
+
+  /**
+   * Compress a file, streaming, in the current zip or in a new zip if the current one would go above the cap
+   * @param entryName - Name of the file in the zip
+   * @param in - Content of the file
+   * @param length - Size of the file in bytes, to estimate its compressed size
+   * @return The number of the zip containing the file, starting from 1
+   * @throws IOException Error while reading {@code in} or writing the zip
+   */
+  public int add(final String entryName, final InputStream in, final long length) throws IOException {
+    final long estimate = (totalUncompressed == 0) ? length : (long) ((double) length * totalCompressed / totalUncompressed);
+    if ((zip == null) || ((zipEntries > 0) && (zipBytes + estimate > cap))) {
+      newZip();
+    }
+    final long before = zipBytes;
+    zip.putNextEntry(new ZipEntry(entryName));
+    final long uncompressed = in.transferTo(zip);
+    zip.closeEntry();   // the compressed data is written: zipBytes is up to date
+    zipEntries++;
+    totalCompressed += zipBytes - before;
+    totalUncompressed += uncompressed;
+    return archives.size();
+  }
+
+  private void newZip() throws IOException {
+    if (zip != null) {
+      zip.close();
+    }
+    final Path archive = directory.resolve(archives.isEmpty() ? name + ".zip" : name + "_" + (archives.size() + 1) + ".zip");
+    final OutputStream out = PolyspaceUtils.newOutputStream(archive, false);
+    archives.add(archive);
+    zipEntries = 0;
+    zipBytes = 0;
+    zip = new ZipOutputStream(new FilterOutputStream(out) {
+      @Override
+      public void write(final int b) throws IOException {
+        out.write(b);
+        zipBytes++;
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        zipBytes += len;
+      }
+    });
+    zip.setLevel(Deflater.BEST_SPEED);   // as PolyspaceUtils.zipFile
+  }
+
+  /**
+   * @return The zips, complete once closed - empty if no file was added
+   */
+  public List<Path> getArchives() {
+    return Collections.unmodifiableList(archives);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (zip != null) {
+      zip.close();
+      zip = null;
+    }
+  }
+}
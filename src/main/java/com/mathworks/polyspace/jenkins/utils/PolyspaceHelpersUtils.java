@@ -21,17 +21,42 @@
 
 package com.mathworks.polyspace.jenkins.utils;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class PolyspaceHelpersUtils {
 
@@ -102,6 +127,188 @@ public class PolyspaceHelpersUtils {
     return Paths.get(report + ".owners.list");
   }
 
+  /**
+   * Build the report-owner-metadata filename: {@code report}.owners.meta
+   * @param report - Path to the report
+   * @return The report-owner-metadata filename, see {@link #readReportOwnerMeta}
+   */
+  public Path getReportOwnerMeta(final Path report)
+  {
+    return Paths.get(report + ".owners.meta");
+  }
+
+  /**
+   * Metadata of a report-owner file, recorded when the file is written so that it is not read again to know them
+   */
+  public static final class ReportOwnerMeta {
+    private final long findings;
+    private final long bytes;
+    private final long checksum;
+
+    public ReportOwnerMeta(final long findings, final long bytes, final long checksum) {
+      this.findings = findings;
+      this.bytes = bytes;
+      this.checksum = checksum;
+    }
+
+    /** @return The number of findings of the file, without the title line */
+    public long getFindings() { return findings; }
+    /** @return The size of the file, in bytes */
+    public long getBytes() { return bytes; }
+    /** @return The CRC-32 of the file */
+    public long getChecksum() { return checksum; }
+  }
+
+  /**
+   * Read the metadata of the report-owner files of {@code report}, written by {@link #reportFilter},
+   * {@link #reportFilterParallel} and {@link #reportRoute}: one line per owner,
+   * "owner findings bytes checksum" separated by tabs, the checksum being the CRC-32 of the file in hexadecimal
+   * @param meta - Path to the report-owner-metadata file, see {@link #getReportOwnerMeta}
+   * @return The metadata of each owner - empty if {@code meta} does not exist
+   * @throws IOException Error while accessing {@code meta}
+   */
+  public Map<String, ReportOwnerMeta> readReportOwnerMeta(final Path meta) throws IOException
+  {
+    final Map<String, ReportOwnerMeta> metas = new LinkedHashMap<>();
+    if (!Files.isRegularFile(meta)) {
+      return metas;
+    }
+    for (final String line : Files.readAllLines(meta, StandardCharsets.UTF_8)) {
+      final String[] fields = line.split("\t");
+      if (fields.length == 4) {
+        try {
+          metas.put(fields[0], new ReportOwnerMeta(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3], 16)));
+        } catch (NumberFormatException e) {
+          // not a metadata line: ignored
+        }
+      }
+    }
+    return metas;
+  }
+
+  /**
+   * Record the metadata of the report-owner file {@code filteredReport_owner} in the metadata file of {@code filteredReport}
+   * @param created - {@code true} if the file has just been created: {@code findings} and {@code checksum} are the ones of the whole file.
+   *                  {@code false} if lines have been appended to an existing file, which is then read again
+   */
+  private void updateReportOwnerMeta(final Path filteredReport, final String owner, final Path filteredReport_owner,
+                                     final boolean created, final long findings, final Checksum checksum) throws IOException
+  {
+    if (!owner.isEmpty()) {
+      writeReportOwnerMeta(filteredReport, Map.of(owner, computeReportOwnerMeta(filteredReport_owner, created, findings, checksum)));
+    }
+  }
+
+  private ReportOwnerMeta computeReportOwnerMeta(final Path filteredReport_owner, final boolean created, final long findings, final Checksum checksum) throws IOException
+  {
+    if (created) {
+      return new ReportOwnerMeta(findings, Files.size(filteredReport_owner), checksum.getValue());
+    }
+    final CRC32 crc = new CRC32();
+    try (InputStream in = new CheckedInputStream(Files.newInputStream(filteredReport_owner), crc)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    return new ReportOwnerMeta(getCountFindings(filteredReport_owner), Files.size(filteredReport_owner), crc.getValue());
+  }
+
+  private void writeReportOwnerMeta(final Path filteredReport, final Map<String, ReportOwnerMeta> updates) throws IOException
+  {
+    final Path meta = getReportOwnerMeta(filteredReport);
+    final Map<String, ReportOwnerMeta> metas = readReportOwnerMeta(meta);
+    metas.putAll(updates);
+    final StringBuilder content = new StringBuilder();
+    for (final Map.Entry<String, ReportOwnerMeta> entry : metas.entrySet()) {
+      content.append(entry.getKey()).append('\t').append(entry.getValue().getFindings())
+        .append('\t').append(entry.getValue().getBytes())
+        .append('\t').append(Long.toHexString(entry.getValue().getChecksum()))
+        .append(System.lineSeparator());
+    }
+    writeAtomically(meta, content.toString());
+  }
+
+  /**
+   * Write in one zip stream the owner list and owner metadata of {@code report} and, for each owner, the report-owner file
+   * of {@code report} and of each of {@code others} (see {@link #getReportOwner}).
+   * Entries are named after the files relative to {@code root}, with '/' separators. Missing files are skipped.
+   * @param root - Directory of the files, for instance the workspace
+   * @param report - Path to the report base name, relative to {@code root}
+   * @param others - Other base names relative to {@code root}, for instance the mail subject and body. {@code null} or empty ones are ignored
+   * @param out - Stream receiving the zip - closed on return
+   * @return The number of files written
+   * @throws IOException Error while reading the files or writing {@code out}
+   */
+  public int zipReportOwners(final Path root, final Path report, final List<Path> others, final OutputStream out) throws IOException
+  {
+    final Set<String> written = new HashSet<>();
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      final Path ownerList = getReportOwnerList(report);
+      if (!zipFile(zip, root, ownerList, written)) {
+        return 0;
+      }
+      zipFile(zip, root, getReportOwnerMeta(report), written);
+      final List<Path> baseNames = new ArrayList<>();
+      baseNames.add(report);
+      for (final Path other : others) {
+        if ((other != null) && !other.toString().isEmpty()) {
+          baseNames.add(other);
+        }
+      }
+      for (final String owner : Files.readAllLines(root.resolve(ownerList))) {
+        PolyspaceUtils.checkInterrupted();
+        for (final Path baseName : baseNames) {
+          zipFile(zip, root, getReportOwner(baseName, owner), written);
+        }
+      }
+    }
+    return written.size();
+  }
+
+  private static boolean zipFile(final ZipOutputStream zip, final Path root, final Path name, final Set<String> written) throws IOException
+  {
+    final Path file = root.resolve(name).normalize();
+    if (!file.startsWith(root.normalize()) || !Files.isRegularFile(file)) {
+      return false;
+    }
+    final String entry = root.normalize().relativize(file).toString().replace(File.separatorChar, '/');
+    if (written.add(entry)) {
+      zip.putNextEntry(new ZipEntry(entry));
+      Files.copy(file, zip);
+      zip.closeEntry();
+    }
+    return true;
+  }
+
+  /**
+   * Get the index file of a report, see {@link #reportIndex}
+   * @param report - Path to the report
+   * @return Path to the index of {@code report}
+   */
+  public Path getReportIndex(final Path report)
+  {
+    return Paths.get(report + ".index");
+  }
+
+  /**
+   * Build the index of {@code report}: once the index exists, {@link #reportFilter} and {@link #getCountFindings} use it
+   * to read only the columns and lines they need. The index is rebuilt automatically when the report changes.
+   * @param report - Path to the report
+   * @return Path to the index of {@code report}
+   * @throws IOException Error while accessing {@code report} or its index
+   */
+  public Path reportIndex(final Path report) throws IOException
+  {
+    if (!Files.exists(report))
+    {
+      throw new RuntimeException("Report '" + report + "' does not exist");
+    }
+    final Path index = getReportIndex(report);
+    if (index.toFile().isDirectory()) {
+      throw new RuntimeException("Cannot create report index, a directory with the same name already exists: '" + index + "'");
+    }
+    PolyspaceReportIndex.build(report, index);
+    return index;
+  }
+
   /**
    * Get the column ID of {@code token} in {@code line}
    * Note that tokens in {@code line} are separated by tabs
@@ -111,25 +318,11 @@ public class PolyspaceHelpersUtils {
    */
   public int reportGetColId(final String line, final String token)
   {
-    final List<String> tokens = Arrays.asList(line.split("\t"));
-    final int index = tokens.indexOf(token);
-    if (index != -1) {
-        return index;
-    }
-    throw new RuntimeException("Title '" + token + "' does not exist");
+    return PolyspaceReportCriteria.columnId(line, token);
   }
 
-  /**
-   * Filter {@code originalReport} against {@code filters} into {@code filteredReport} associated with {@code owner}
-   * @param originalReport - Path to original report
-   * @param filteredReport - Path to the new filtered report - it may already exist to allow to append multiple filtered reports
-   * @param owner - The owner for the filtered report - must be a username matching an email as it will also be used to send the email notification
-   * @param filters - An array of strings containing one or more "key" "value" pairs
-   * @throws IOException Error while accessing {@code originalReport} or {@code filteredReport}
-   */
-  public void reportFilter(final Path originalReport, final Path filteredReport, final String owner, final String[] filters) throws IOException {
-    int n = 0;
-
+  private void checkReportFilter(final Path originalReport, final Path filteredReport_owner, final String owner, final Path ownerList, final String[] filters)
+  {
     // Check original report
     if (!Files.exists(originalReport))
     {
@@ -143,68 +336,546 @@ public class PolyspaceHelpersUtils {
     }
 
     // Check filtered report
-    Path filteredReport_owner = getReportOwner(filteredReport, owner);
     if (!owner.isEmpty() && filteredReport_owner.toFile().isDirectory()) {
       throw new RuntimeException("Cannot create filtered report, a directory with the same name already exists: '" + filteredReport_owner + "'");
     }
 
     // Check owners list
-    final Path ownerList = getReportOwnerList(filteredReport);   // name of the file that contains all owners that have been filtered
     if (ownerList.toFile().isDirectory()) {
       throw new RuntimeException("Cannot create owner list, a directory with the same name already exists: '" + ownerList + "'");
     }
+  }
+
+  /**
+   * @param titleLine - Line containing the report column names
+   * @param filters - Either "key" "value" pairs, or "-where" followed by a filter expression, see {@link PolyspaceReportQuery}
+   * @return The matcher of the report lines selected by {@code filters}
+   */
+  private static PolyspaceReportMatcher reportMatcher(final String titleLine, final String[] filters)
+  {
+    if ((filters.length == 2) && FILTER_EXPRESSION.equals(filters[0])) {
+      PolyspaceReportQuery query;
+      synchronized (QUERIES) {
+        query = QUERIES.get(filters[1]);
+      }
+      if (query == null) {
+        query = PolyspaceReportQuery.parse(filters[1]);
+        synchronized (QUERIES) {
+          QUERIES.put(filters[1], query);
+        }
+      }
+      return query.matcher(titleLine);
+    }
+    return new PolyspaceReportCriteria(titleLine, filters);
+  }
+
+  /** Filter expressions already parsed, most recently used last - queries are immutable and shared by all threads */
+  private static final int MAX_QUERIES = 256;
+  private static final Map<String, PolyspaceReportQuery> QUERIES = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, PolyspaceReportQuery> eldest) {
+      return size() > MAX_QUERIES;
+    }
+  };
+
+  /** Filter argument introducing a filter expression instead of "key" "value" pairs */
+  public static final String FILTER_EXPRESSION = "-where";
+
+  private void addOwnerInFile(final Path ownerList, final String owner) throws IOException
+  {
+    if (!owner.isEmpty()) {
+      // this owner must be added to the list of owners, if this is not already the case
+      if (!isOwnerInFile(ownerList, owner)) {
+        appendLineInFile(ownerList, owner);
+      }
+    }
+  }
+
+  /**
+   * Filter {@code originalReport} against {@code filters} into {@code filteredReport} associated with {@code owner}
+   * @param originalReport - Path to original report
+   * @param filteredReport - Path to the new filtered report - it may already exist to allow to append multiple filtered reports
+   * @param owner - The owner for the filtered report - must be a username matching an email as it will also be used to send the email notification
+   * @param filters - An array of strings containing one or more "key" "value" pairs, or "-where" followed by a filter expression (see {@link PolyspaceReportQuery})
+   * @return The number of findings added to the filtered report
+   * @throws IOException Error while accessing {@code originalReport} or {@code filteredReport}
+   */
+  public long reportFilter(final Path originalReport, final Path filteredReport, final String owner, final String[] filters) throws IOException {
+    final Path filteredReport_owner = getReportOwner(filteredReport, owner);
+    final Path ownerList = getReportOwnerList(filteredReport);   // name of the file that contains all owners that have been filtered
+    checkReportFilter(originalReport, filteredReport_owner, owner, ownerList, filters);
 
     // Return if original report is empty
-    final String originalReportContent = PolyspaceUtils.getFileContent(originalReport);
-    if (originalReportContent.isEmpty())
+    if (Files.size(originalReport) == 0)
     {
-      return;
+      return 0;
     }
 
-    try (final Scanner originalReportScanner = new Scanner(originalReportContent))
+    // With an index, only the columns used by the filters and the matching lines are read
+    final PolyspaceReportIndex index = PolyspaceReportIndex.open(originalReport, getReportIndex(originalReport));
+    if (index != null)
     {
-      // Compute filters
-      final String titleLine = originalReportScanner.nextLine();
-      int nCriteria = (filters.length - n) / 2;
-      int[] colId = new int[nCriteria];
-      String[] criteria = new String[nCriteria];
-      for (int id = 0; id < nCriteria; id++) {
-        colId[id] = reportGetColId(titleLine, filters[n++]);
-        criteria[id] = filters[n++];
+      try (index)
+      {
+        final PolyspaceReportMatcher matcher = reportMatcher(index.titleLine(), filters);
+        final boolean addTitle = (!filteredReport_owner.toFile().exists());
+        final CRC32 checksum = new CRC32();
+        long filteredLines;
+        try (final OutputStream filteredReportStream = new CheckedOutputStream(PolyspaceUtils.newOutputStream(filteredReport_owner, !addTitle), checksum))
+        {
+          if (addTitle)
+          {
+            index.writeTitle(filteredReportStream);
+            filteredReportStream.write(LINE_SEPARATOR);
+          }
+          filteredLines = index.writeMatches(matcher, filteredReportStream, LINE_SEPARATOR);
+        }
+        if (filteredLines > 0) {
+          addOwnerInFile(ownerList, owner);
+          updateReportOwnerMeta(filteredReport, owner, filteredReport_owner, addTitle, filteredLines, checksum);
+        }
+        return filteredLines;
       }
+    }
+
+    // The original report is streamed line by line and matching lines are written as soon as they are found,
+    // so the memory used does not depend on the size of the report.
+    // Lines are matched on their UTF-8 bytes, so that nothing is allocated for each line.
+    try (final PolyspaceReportLineReader originalReportReader = new PolyspaceReportLineReader(originalReport))
+    {
+      // Compute filters
+      originalReportReader.readLine();
+      final String titleLine = originalReportReader.line();
+      final PolyspaceReportMatcher matcher = reportMatcher(titleLine, filters);
 
       // If the output file already exists, new lines will be concatenated to the existing file.
       // This allows to concat several filtering outputs into the same target file.
-      ArrayList<String> filteredReportContent = new ArrayList<>();
       boolean addTitle = (!filteredReport_owner.toFile().exists());
-      if (addTitle)
+
+      final CRC32 checksum = new CRC32();
+      long filteredLines = 0;
+      try (final OutputStream filteredReportStream = new CheckedOutputStream(PolyspaceUtils.newOutputStream(filteredReport_owner, !addTitle), checksum))
       {
-        filteredReportContent.add(titleLine);
+        if (addTitle)
+        {
+          originalReportReader.writeLine(filteredReportStream);
+          filteredReportStream.write(LINE_SEPARATOR);
+        }
+
+        while (originalReportReader.readLine())
+        {
+          if (matcher.matches(originalReportReader.buffer(), originalReportReader.start(), originalReportReader.end())) {
+            filteredLines++;
+            originalReportReader.writeLine(filteredReportStream);
+            filteredReportStream.write(LINE_SEPARATOR);
+          }
+        }
+      }
+
+      if (filteredLines > 0) {
+        addOwnerInFile(ownerList, owner);
+        updateReportOwnerMeta(filteredReport, owner, filteredReport_owner, addTitle, filteredLines, checksum);
       }
+      return filteredLines;
+    }
+  }
+
+  /**
+   * Same as {@link #reportFilter} but {@code originalReport} is memory-mapped and split in chunks of lines
+   * that are filtered in parallel. The filtered report is identical to the one of {@link #reportFilter}:
+   * chunks are written in the order of the original report.
+   * @param originalReport - Path to original report
+   * @param filteredReport - Path to the new filtered report - it may already exist to allow to append multiple filtered reports
+   * @param owner - The owner for the filtered report - must be a username matching an email as it will also be used to send the email notification
+   * @param filters - An array of strings containing one or more "key" "value" pairs, or "-where" followed by a filter expression (see {@link PolyspaceReportQuery})
+   * @param workers - Number of threads used to filter the chunks - 0 to use all available processors
+   * @return The number of findings added to the filtered report
+   * @throws IOException Error while accessing {@code originalReport} or {@code filteredReport}
+   */
+  public long reportFilterParallel(final Path originalReport, final Path filteredReport, final String owner, final String[] filters, final int workers) throws IOException {
+    final Path filteredReport_owner = getReportOwner(filteredReport, owner);
+    final Path ownerList = getReportOwnerList(filteredReport);
+    checkReportFilter(originalReport, filteredReport_owner, owner, ownerList, filters);
+    if (workers < 0)
+    {
+      throw new RuntimeException("Number of workers must be positive or 0: " + workers);
+    }
+
+    try (final FileChannel originalReportChannel = FileChannel.open(originalReport, StandardOpenOption.READ))
+    {
+      // Return if original report is empty
+      final long size = originalReportChannel.size();
+      if (size == 0)
+      {
+        return 0;
+      }
+
+      // Compute filters
+      final long titleEnd = nextLineStart(originalReportChannel, 0, size);
+      final MappedByteBuffer titleBuffer = originalReportChannel.map(FileChannel.MapMode.READ_ONLY, 0, titleEnd);
+      final int titleLineEnd = lineEnd(titleBuffer, 0, titleBuffer.limit());
+      final String titleLine = new String(lineBytes(titleBuffer, 0, titleLineEnd), StandardCharsets.UTF_8);
+      // Checks the filters before filtering: each chunk then uses its own matcher, as matchers are not thread safe
+      reportMatcher(titleLine, filters);
 
-      boolean filteredReportEmpty = true;
-      while (originalReportScanner.hasNextLine())
+      final boolean addTitle = (!filteredReport_owner.toFile().exists());
+      final ForkJoinPool pool = new ForkJoinPool(workers == 0 ? Runtime.getRuntime().availableProcessors() : workers);
+      final CRC32 checksum = new CRC32();
+      long filteredLines = 0;
+      try (final OutputStream filteredReportStream = new CheckedOutputStream(PolyspaceUtils.newOutputStream(filteredReport_owner, !addTitle), checksum))
       {
-        String line = originalReportScanner.nextLine();
-        String[] tokens = line.split("\t");
-        boolean matching = true;
-        for (int id = 0; matching && (id < nCriteria); id++) {
-          matching = tokens[colId[id]].equals(criteria[id]);
+        if (addTitle)
+        {
+          filteredReportStream.write(titleLine.getBytes(StandardCharsets.UTF_8));
+          filteredReportStream.write(LINE_SEPARATOR);
         }
-        if (matching) {
-          filteredReportEmpty = false;
-          filteredReportContent.add(line);
+
+        // Chunks are submitted ahead of the one being written, in a bounded window to bound memory usage
+        final int window = 2 * pool.getParallelism();
+        final Deque<ForkJoinTask<ReportChunk>> pending = new ArrayDeque<>();
+        long chunkStart = Math.min(nextLineStart(titleBuffer, titleLineEnd, titleBuffer.limit()), size);
+        while ((chunkStart < size) || !pending.isEmpty())
+        {
+          while ((chunkStart < size) && (pending.size() < window))
+          {
+            final long start = chunkStart;
+            final long end = nextLineStart(originalReportChannel, Math.min(start + REPORT_CHUNK_SIZE, size) - 1, size);
+            pending.add(pool.submit(() -> filterChunk(originalReportChannel, start, end, reportMatcher(titleLine, filters))));
+            chunkStart = end;
+          }
+          PolyspaceUtils.checkInterrupted();
+          final ReportChunk chunk = joinChunk(pending.poll());
+          chunk.content.writeTo(filteredReportStream);
+          filteredLines += chunk.lines;
         }
+      } finally {
+        pool.shutdownNow();
+      }
+
+      if (filteredLines > 0) {
+        addOwnerInFile(ownerList, owner);
+        updateReportOwnerMeta(filteredReport, owner, filteredReport_owner, addTitle, filteredLines, checksum);
+      }
+      return filteredLines;
+    }
+  }
+
+  /** Line separator of the filtered reports */
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+  /** Maximum number of filtered reports open at the same time by {@link #reportRoute}, far below the usual limit of open files */
+  private static final int MAX_ROUTE_OPEN_FILES = 64;
+
+  /** Size of the chunks filtered in parallel by {@link #reportFilterParallel} */
+  private static final int REPORT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * Filtered lines of a chunk of a report
+   */
+  private static class ReportChunk {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    long lines = 0;
+  }
+
+  private ReportChunk filterChunk(final FileChannel channel, final long start, final long end, final PolyspaceReportMatcher matcher) throws IOException
+  {
+    final ReportChunk chunk = new ReportChunk();
+    final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    final int limit = buffer.limit();
+    byte[] line = new byte[0];
+    int pos = 0;
+    while (pos < limit)
+    {
+      final int lineEnd = lineEnd(buffer, pos, limit);
+      if (matcher.matches(buffer, pos, lineEnd)) {
+        final int length = lineEnd - pos;
+        if (line.length < length) {
+          line = new byte[Math.max(length, 2 * line.length)];
+        }
+        buffer.get(pos, line, 0, length);
+        chunk.content.write(line, 0, length);
+        chunk.content.write(LINE_SEPARATOR);
+        chunk.lines++;
+      }
+      pos = nextLineStart(buffer, lineEnd, limit);
+    }
+    return chunk;
+  }
+
+  private static ReportChunk joinChunk(final ForkJoinTask<ReportChunk> task) throws IOException
+  {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while filtering report");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
       }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
 
-      PolyspaceUtils.writeContent(filteredReport_owner, filteredReportContent);
+  /**
+   * @return Position of the first line terminator ('\n' or '\r') of {@code buffer} from {@code pos}, or {@code limit}
+   */
+  private static int lineEnd(final ByteBuffer buffer, int pos, final int limit)
+  {
+    while ((pos < limit) && (buffer.get(pos) != '\n') && (buffer.get(pos) != '\r')) {
+      pos++;
+    }
+    return pos;
+  }
 
-      if (!filteredReportEmpty && !owner.isEmpty()) {
-        // this owner must be added to the list of owners, if this is not already the case
-        if (!isOwnerInFile(ownerList, owner)) {
-          appendLineInFile(ownerList, owner);
+  /**
+   * @return Position after the line terminator at {@code lineEnd} - "\r\n" is a single line terminator
+   */
+  private static int nextLineStart(final ByteBuffer buffer, final int lineEnd, final int limit)
+  {
+    if ((lineEnd + 1 < limit) && (buffer.get(lineEnd) == '\r') && (buffer.get(lineEnd + 1) == '\n')) {
+      return lineEnd + 2;
+    }
+    return lineEnd + 1;
+  }
+
+  private static byte[] lineBytes(final ByteBuffer buffer, final int start, final int end)
+  {
+    final byte[] bytes = new byte[end - start];
+    buffer.get(start, bytes);
+    return bytes;
+  }
+
+  /**
+   * @return Position after the first '\n' of {@code channel} from {@code pos}, or {@code size}
+   */
+  private static long nextLineStart(final FileChannel channel, long pos, final long size) throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.allocate(8192);
+    while (pos < size)
+    {
+      buffer.clear();
+      final int read = channel.read(buffer, pos);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return pos + i + 1;
         }
       }
+      pos += read;
+    }
+    return size;
+  }
+
+  /**
+   * Write the findings of {@code report} that are not in {@code baseline} into the {@code diffReport} report with suffix "_new",
+   * and the findings of {@code baseline} that are not in {@code report} anymore into the {@code diffReport} report with suffix "_fixed"
+   * (see {@link #getReportOwner}). Findings are identified by the values of the {@code keyTitles} columns.
+   * @param report - Path to the current report
+   * @param baseline - Path to the baseline report, for instance the report of the last successful build
+   * @param diffReport - Path to the diff report base name
+   * @param keyTitles - Titles of the columns identifying a finding
+   * @param memoryBudget - Memory allowed for the keys of {@code baseline}, in bytes: larger reports are sorted in temporary files
+   * @return The number of new findings and the number of fixed findings
+   * @throws IOException Error while accessing the reports
+   */
+  public long[] reportDiff(final Path report, final Path baseline, final Path diffReport, final String[] keyTitles, final long memoryBudget) throws IOException
+  {
+    // Check reports
+    if (!Files.exists(report))
+    {
+      throw new RuntimeException("Report '" + report + "' does not exist");
+    }
+    if (!Files.exists(baseline))
+    {
+      throw new RuntimeException("Baseline report '" + baseline + "' does not exist");
+    }
+
+    // Check keys
+    if (keyTitles.length == 0)
+    {
+      throw new RuntimeException("Missing key titles");
+    }
+
+    // Check diff reports
+    final Path newReport = getReportOwner(diffReport, "new");
+    final Path fixedReport = getReportOwner(diffReport, "fixed");
+    for (final Path path : new Path[] { newReport, fixedReport }) {
+      if (path.toFile().isDirectory()) {
+        throw new RuntimeException("Cannot create diff report, a directory with the same name already exists: '" + path + "'");
+      }
+    }
+
+    return new PolyspaceReportDiff(keyTitles, memoryBudget).diff(report, baseline, newReport, fixedReport);
+  }
+
+  /**
+   * Same as {@link #reportDiff(Path, Path, Path, String[], long)} with a memory budget of half the maximum memory of the JVM
+   * @param report - Path to the current report
+   * @param baseline - Path to the baseline report, for instance the report of the last successful build
+   * @param diffReport - Path to the diff report base name
+   * @param keyTitles - Titles of the columns identifying a finding
+   * @return The number of new findings and the number of fixed findings
+   * @throws IOException Error while accessing the reports
+   */
+  public long[] reportDiff(final Path report, final Path baseline, final Path diffReport, final String[] keyTitles) throws IOException
+  {
+    return reportDiff(report, baseline, diffReport, keyTitles, Runtime.getRuntime().maxMemory() / 2);
+  }
+
+  /**
+   * Read the routing rules of {@code rules}: one rule per line, made of tab separated fields
+   * {@code owner title1 value1 [title2 value2]...}, or {@code owner -where expression} (see {@link PolyspaceReportQuery}).
+   * Empty lines and lines starting with '#' are ignored.
+   * @param rules - Path to the rules file
+   * @return The filters of each owner, in the order owners appear in {@code rules}
+   * @throws IOException Error while accessing {@code rules}
+   */
+  public Map<String, List<String[]>> readReportRoutingRules(final Path rules) throws IOException
+  {
+    final Map<String, List<String[]>> ownerFilters = new LinkedHashMap<>();
+    try (final BufferedReader rulesReader = PolyspaceUtils.newReader(rules))
+    {
+      int lineNumber = 0;
+      String line;
+      while ((line = rulesReader.readLine()) != null)
+      {
+        lineNumber++;
+        if (line.isBlank() || line.startsWith("#")) {
+          continue;
+        }
+        final String[] fields = line.split("\t");
+        if (fields[0].isEmpty() || (fields.length < 3) || ((fields.length % 2) == 0)) {
+          throw new RuntimeException("Invalid rule at line " + lineNumber + " of '" + rules + "': expecting <owner> ([<title> <value>]+ | -where <expression>) separated by tabs");
+        }
+        ownerFilters.computeIfAbsent(fields[0], owner -> new ArrayList<>()).add(Arrays.copyOfRange(fields, 1, fields.length));
+      }
+    }
+    return ownerFilters;
+  }
+
+  /**
+   * Route {@code originalReport} to several owners in a single pass: the original report is read only once.
+   * A line is written once for an owner when it matches any of the rules of this owner, in the order of the original report:
+   * the lines matching several rules of an owner are not duplicated.
+   * @param originalReport - Path to original report
+   * @param filteredReport - Path to the filtered report base name - the owner is appended to it as in {@link #reportFilter}
+   * @param rules - Path to the routing rules file, see {@link #readReportRoutingRules}
+   * @throws IOException Error while accessing {@code originalReport}, {@code filteredReport} or {@code rules}
+   */
+  public void reportRoute(final Path originalReport, final Path filteredReport, final Path rules) throws IOException {
+    // Check original report
+    if (!Files.exists(originalReport))
+    {
+      throw new RuntimeException("Original report '" + originalReport + "' does not exist");
+    }
+
+    // Check rules
+    if (!Files.exists(rules))
+    {
+      throw new RuntimeException("Rules file '" + rules + "' does not exist");
+    }
+    final Map<String, List<String[]>> ownerFilters = readReportRoutingRules(rules);
+    if (ownerFilters.isEmpty())
+    {
+      throw new RuntimeException("Missing rules");
+    }
+
+    // Check filtered reports
+    final String[] owners = ownerFilters.keySet().toArray(new String[0]);
+    final Path[] filteredReport_owner = new Path[owners.length];
+    for (int o = 0; o < owners.length; o++) {
+      filteredReport_owner[o] = getReportOwner(filteredReport, owners[o]);
+      if (filteredReport_owner[o].toFile().isDirectory()) {
+        throw new RuntimeException("Cannot create filtered report, a directory with the same name already exists: '" + filteredReport_owner[o] + "'");
+      }
+    }
+
+    // Check owners list
+    final Path ownerList = getReportOwnerList(filteredReport);
+    if (ownerList.toFile().isDirectory()) {
+      throw new RuntimeException("Cannot create owner list, a directory with the same name already exists: '" + ownerList + "'");
+    }
+
+    // Return if original report is empty
+    if (Files.size(originalReport) == 0)
+    {
+      return;
+    }
+
+    final boolean[] ownerFound = new boolean[owners.length];
+    final boolean[] created = new boolean[owners.length];
+    final long[] findings = new long[owners.length];
+    final CRC32[] checksums = new CRC32[owners.length];
+    try (final PolyspaceReportLineReader originalReportReader = new PolyspaceReportLineReader(originalReport);
+         final PolyspaceReportOutputs outputs = new PolyspaceReportOutputs(filteredReport_owner, checksums, MAX_ROUTE_OPEN_FILES))
+    {
+      // Compute filters of all owners
+      originalReportReader.readLine();
+      final String titleLine = originalReportReader.line();
+      final PolyspaceReportMatcher[][] matchers = new PolyspaceReportMatcher[owners.length][];
+      for (int o = 0; o < owners.length; o++) {
+        final List<String[]> filters = ownerFilters.get(owners[o]);
+        matchers[o] = new PolyspaceReportMatcher[filters.size()];
+        for (int r = 0; r < matchers[o].length; r++) {
+          matchers[o][r] = reportMatcher(titleLine, filters.get(r));
+        }
+      }
+
+      // Create the missing filtered reports with their title, with the same append behavior as reportFilter:
+      // the reports are then opened in append mode when they get lines, a limited number at a time
+      for (int o = 0; o < owners.length; o++) {
+        final boolean addTitle = !filteredReport_owner[o].toFile().exists();
+        created[o] = addTitle;
+        checksums[o] = new CRC32();
+        if (addTitle) {
+          try (final OutputStream stream = new CheckedOutputStream(PolyspaceUtils.newOutputStream(filteredReport_owner[o], false), checksums[o])) {
+            originalReportReader.writeLine(stream);
+            stream.write(LINE_SEPARATOR);
+          }
+        }
+      }
+
+      while (originalReportReader.readLine())
+      {
+        for (int o = 0; o < owners.length; o++) {
+          for (final PolyspaceReportMatcher ownerMatcher : matchers[o]) {
+            if (ownerMatcher.matches(originalReportReader.buffer(), originalReportReader.start(), originalReportReader.end())) {
+              ownerFound[o] = true;
+              findings[o]++;
+              final OutputStream stream = outputs.get(o);
+              originalReportReader.writeLine(stream);
+              stream.write(LINE_SEPARATOR);
+              break;
+            }
+          }
+        }
+      }
+    }
+
+    // Update the list of owners once for all owners
+    final Set<String> listedOwners = new HashSet<>();
+    if (ownerList.toFile().exists()) {
+      listedOwners.addAll(PolyspaceUtils.getFileContent(ownerList).lines().collect(Collectors.toList()));
+    }
+    final Map<String, ReportOwnerMeta> metas = new LinkedHashMap<>();
+    for (int o = 0; o < owners.length; o++) {
+      if (ownerFound[o] && listedOwners.add(owners[o])) {
+        appendLineInFile(ownerList, owners[o]);
+      }
+      if (ownerFound[o]) {
+        metas.put(owners[o], computeReportOwnerMeta(filteredReport_owner[o], created[o], findings[o], checksums[o]));
+      }
+    }
+    if (!metas.isEmpty()) {
+      writeReportOwnerMeta(filteredReport, metas);
     }
   }
 
@@ -214,7 +885,27 @@ public class PolyspaceHelpersUtils {
    * @throws IOException Error while accessing {@code report}
    */
   public long getCountFindings(final Path report) throws IOException {
-    return PolyspaceUtils.getFileLineCount(report) - 1;
+    return countFindings(report, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param report - Path to the report
+   * @param max - Stop counting once the number of findings is above {@code max}
+   * @return The number of findings of {@code report}, or a number above {@code max} if there are more than {@code max} findings
+   * @throws IOException Error while accessing {@code report}
+   */
+  private long countFindings(final Path report, final long max) throws IOException {
+    if (Files.size(report) > 0)
+    {
+      try (final PolyspaceReportIndex index = PolyspaceReportIndex.open(report, getReportIndex(report)))
+      {
+        if (index != null) {
+          return index.lines();
+        }
+      }
+    }
+    // the title line is not a finding
+    return PolyspaceUtils.getFileLineCount(report, (max == Long.MAX_VALUE) ? max : max + 1) - 1;
   }
 
   /**
@@ -226,10 +917,89 @@ public class PolyspaceHelpersUtils {
    */
   public String getReportStatus(final Path report, final long max) throws IOException
   {
-    final long nb = getCountFindings(report);
+    // no need to count the findings beyond max
+    final long nb = countFindings(report, max);
     return nb > max ? "UNSTABLE" : "SUCCESS";
   }
 
+  /**
+   * Small utility class to hold the number of findings of a combination of column values
+   */
+  static public class AggregateCount {
+    public final String[] key;
+    public final long count;
+
+    public AggregateCount(final String[] k, final long c) {
+      key = k;
+      count = c;
+    }
+  }
+
+  /**
+   * Count the findings of {@code report} for each combination of values of the {@code titles} columns, in a single pass
+   * @param report - Path to the report
+   * @param titles - Titles of the columns to group by
+   * @return The count of each combination, most frequent first
+   * @throws IOException Error while accessing {@code report}
+   */
+  public List<AggregateCount> getReportAggregate(final Path report, final String[] titles) throws IOException
+  {
+    if (!Files.exists(report))
+    {
+      throw new RuntimeException("Report '" + report + "' does not exist");
+    }
+    if (titles.length == 0)
+    {
+      throw new RuntimeException("Missing titles");
+    }
+    return PolyspaceReportAggregate.aggregate(report, titles);
+  }
+
+  /**
+   * @param titles - Titles of the columns grouped by
+   * @param counts - Counts computed by {@link #getReportAggregate}
+   * @param json - {@code true} for a JSON array of objects, {@code false} for a tab separated report with a "Count" column
+   * @return The formatted counts
+   */
+  public String formatReportAggregate(final String[] titles, final List<AggregateCount> counts, final boolean json)
+  {
+    final StringBuilder out = new StringBuilder();
+    if (json) {
+      out.append('[');
+      for (int c = 0; c < counts.size(); c++) {
+        out.append((c == 0) ? "" : ",").append(System.lineSeparator()).append("  {");
+        for (int t = 0; t < titles.length; t++) {
+          appendJsonString(out, titles[t]).append(": ");
+          appendJsonString(out, counts.get(c).key[t]).append(", ");
+        }
+        out.append("\"Count\": ").append(counts.get(c).count).append('}');
+      }
+      out.append(counts.isEmpty() ? "" : System.lineSeparator()).append(']');
+    } else {
+      out.append(String.join("\t", titles)).append("\tCount");
+      for (final AggregateCount count : counts) {
+        out.append(System.lineSeparator()).append(String.join("\t", count.key)).append('\t').append(count.count);
+      }
+    }
+    return out.toString();
+  }
+
+  private static StringBuilder appendJsonString(final StringBuilder out, final String value)
+  {
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if ((c == '"') || (c == '\\')) {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    return out.append('"');
+  }
+
   /**
    * Small utility class to hold a results runId and projectId
    */
@@ -249,27 +1019,170 @@ public class PolyspaceHelpersUtils {
   }
 
     /**
+   * The upload output is read line by line up to the line giving the result: only this line is decoded,
+   * and the rest of the output is not read.
    * @param output - Captured content of upload command stdout
    * @return - RunId and ProjectId for result found in {@code output}
    * @throws IOException Error while accessing {@code output}
    */
-  private AccessUploadResult getAccessUploadResult(Path output) throws IOException
+  public AccessUploadResult getAccessUploadResult(Path output) throws IOException
   {
     AccessUploadResult result = new AccessUploadResult();
-    final String content = PolyspaceUtils.getFileContent(output);
 
-    content.lines()
-      .filter(line -> line.startsWith("Upload successful for RUN_ID"))
-      .findFirst()
-      .ifPresent(line -> {
-          String[] tokens = line.split(" ");
-          result.runId = tokens[4];
-          result.projectId = tokens[7];
-      });
+    try (final PolyspaceReportLineReader outputReader = new PolyspaceReportLineReader(output))
+    {
+      while (outputReader.readLine())
+      {
+        if (startsWith(outputReader.buffer(), outputReader.start(), outputReader.end(), UPLOAD_SUCCESSFUL)) {
+          parseUploadSuccessful(outputReader.line(), result);
+          break;
+        }
+      }
+    }
 
     return result;
   }
 
+  private static void parseUploadSuccessful(final String line, final AccessUploadResult result)
+  {
+    String[] tokens = line.split(" ");
+    result.runId = tokens[4];
+    result.projectId = tokens[7];
+  }
+
+  /** Start of the line of the upload output giving the result */
+  private static final byte[] UPLOAD_SUCCESSFUL = "Upload successful for RUN_ID".getBytes(StandardCharsets.UTF_8);
+
+  private static boolean startsWith(final ByteBuffer buffer, final int start, final int end, final byte[] prefix)
+  {
+    if (end - start < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(start + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param output - Captured content of upload command stdout
+   * @param accessURL - Root Access server URL - empty to not give the results URL
+   * @param json - {@code true} for a JSON object, {@code false} for "KEY='value'" lines that a shell can source
+   * @return RunId, ProjectId and results URL found in {@code output}, read once
+   * @throws IOException Error while accessing {@code output}
+   */
+  public String getAccessResult(Path output, String accessURL, boolean json) throws IOException
+  {
+    AccessUploadResult result = getAccessUploadResult(output);
+    if (result.runId.isEmpty())
+    {
+      throw new RuntimeException("Cannot find runId in '" + output + "'");
+    }
+    return formatAccessResult(result, accessURL, json);
+  }
+
+  private String formatAccessResult(final AccessUploadResult result, final String accessURL, final boolean json)
+  {
+    final String[][] values = {
+      { "POLYSPACE_RUN_ID", "runId", result.runId },
+      { "POLYSPACE_PROJECT_ID", "projectId", result.projectId },
+      { "POLYSPACE_PROJECT_URL", "url", accessURL.isEmpty() ? null : getAccessResultUrl(result, accessURL) },
+    };
+    final StringBuilder out = new StringBuilder(json ? "{" : "");
+    for (final String[] value : values) {
+      if (value[2] == null) {
+        continue;
+      }
+      if (json) {
+        out.append((out.length() > 1) ? ", " : "");
+        appendJsonString(out, value[1]).append(": ");
+        appendJsonString(out, value[2]);
+      } else {
+        out.append((out.length() > 0) ? System.lineSeparator() : "");
+        out.append(value[0]).append("='").append(value[2].replace("'", "'\\''")).append('\'');
+      }
+    }
+    return json ? out.append('}').toString() : out.toString();
+  }
+
+  /**
+   * Copy the output of {@code polyspace-access -upload} from {@code in} to {@code out} as it comes,
+   * and write the result of the upload to {@code resultFile} as soon as the upload output gives it,
+   * as {@link #getAccessResult} does, so that the upload output does not need to be saved and read again.
+   * {@code resultFile} is written at once: it either does not exist or is complete.
+   * @param in - Upload output
+   * @param out - Copy of the upload output
+   * @param resultFile - Path to the file receiving the result
+   * @param accessURL - Root Access server URL - empty to not give the results URL
+   * @param json - {@code true} for a JSON object, {@code false} for "KEY='value'" lines that a shell can source
+   * @throws IOException Error while copying the upload output or writing {@code resultFile}
+   */
+  public void teeAccessUploadResult(final InputStream in, final OutputStream out, final Path resultFile, final String accessURL, final boolean json) throws IOException
+  {
+    if (resultFile.toFile().isDirectory()) {
+      throw new RuntimeException("Cannot create result file, a directory with the same name already exists: '" + resultFile + "'");
+    }
+    Files.deleteIfExists(resultFile);   // a result file left by a previous upload
+
+    final byte[] buffer = new byte[8192];
+    final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    boolean candidate = true;           // the current line starts as the line giving the result
+    boolean found = false;
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+      out.flush();
+      for (int i = 0; (i < read) && !found; i++) {
+        final byte b = buffer[i];
+        if ((b == '\n') || (b == '\r')) {
+          found = candidate && teeAccessUploadLine(line, resultFile, accessURL, json);
+          line.reset();
+          candidate = true;
+        } else if (candidate) {
+          candidate = (line.size() >= UPLOAD_SUCCESSFUL.length) || (b == UPLOAD_SUCCESSFUL[line.size()]);
+          if (candidate) {
+            line.write(b);
+          }
+        }
+      }
+    }
+    if (!found && !(candidate && teeAccessUploadLine(line, resultFile, accessURL, json))) {
+      throw new RuntimeException("Cannot find runId in the upload output");
+    }
+  }
+
+  private boolean teeAccessUploadLine(final ByteArrayOutputStream line, final Path resultFile, final String accessURL, final boolean json) throws IOException
+  {
+    if (line.size() < UPLOAD_SUCCESSFUL.length) {
+      return false;
+    }
+    final AccessUploadResult result = new AccessUploadResult();
+    parseUploadSuccessful(line.toString(StandardCharsets.UTF_8), result);
+
+    writeAtomically(resultFile, formatAccessResult(result, accessURL, json) + System.lineSeparator());
+    return true;
+  }
+
+  /**
+   * Write {@code content} next to {@code file}, then move it, so that a partial content is never read
+   */
+  private static void writeAtomically(final Path file, final String content) throws IOException
+  {
+    final Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), String.valueOf(file.getFileName()), ".tmp");
+    try {
+      Files.writeString(temp, content, StandardCharsets.UTF_8);
+      try {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
     /**
    * @param output - Path to the report
    * @return Result runId
@@ -313,6 +1226,16 @@ public class PolyspaceHelpersUtils {
     {
       throw new RuntimeException("Cannot find project url from '" + output + "'");
     }
+    return getAccessResultUrl(result, accessURL);
+  }
+
+  /**
+   * @param result - RunId and ProjectId found by {@link #getAccessUploadResult}
+   * @param accessURL - Root Access server URL
+   * @return Results URL
+   */
+  public String getAccessResultUrl(AccessUploadResult result, String accessURL)
+  {
     return accessURL + "/metrics/index.html?a=review&p=" + result.projectId + "&r=" + result.runId;
   }
 }
@@ -0,0 +1,116 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Mail subject or body with {@code ${name}} placeholders, for instance {@code ${owner}} or {@code ${count}}.
+ * The template is parsed once, in alternating literals and placeholders, then rendered for each recipient
+ * by appending them to a buffer, without parsing the template again.
+ * <code>$${</code> is rendered as <code>${</code>, and a placeholder without value is rendered unchanged.
+ */
+public final class PolyspaceMailTemplate {
+  private final String[] literals;  // literal text before each placeholder, then after the last one
+  private final String[] names;     // placeholder names
+
+  private PolyspaceMailTemplate(final String[] literals, final String[] names) {
+    this.literals = literals;
+    this.names = names;
+  }
+
+  /**
+   * @param template - Text with {@code ${name}} placeholders, where name is made of letters, digits and underscores
+   * @return The compiled template
+   */
+  public static PolyspaceMailTemplate compile(final String template) {
+    final List<String> literals = new ArrayList<>();
+    final List<String> names = new ArrayList<>();
+    final StringBuilder literal = new StringBuilder();
+    int pos = 0;
+    while (pos < template.length()) {
+      final int dollar = template.indexOf('$', pos);
+      if (dollar == -1) {
+        literal.append(template, pos, template.length());
+        break;
+      }
+      literal.append(template, pos, dollar);
+      if (template.startsWith("$${", dollar)) {
+        literal.append("${");
+        pos = dollar + 3;
+        continue;
+      }
+      final int end = template.startsWith("${", dollar) ? nameEnd(template, dollar + 2) : -1;
+      if ((end == -1) || (end == dollar + 2) || (end == template.length()) || (template.charAt(end) != '}')) {
+        literal.append('$');    // not a placeholder
+        pos = dollar + 1;
+        continue;
+      }
+      literals.add(literal.toString());
+      literal.setLength(0);
+      names.add(template.substring(dollar + 2, end));
+      pos = end + 1;
+    }
+    literals.add(literal.toString());
+    return new PolyspaceMailTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+  }
+
+  private static int nameEnd(final String template, int pos) {
+    while ((pos < template.length()) && (Character.isLetterOrDigit(template.charAt(pos)) || (template.charAt(pos) == '_'))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * @param name - Placeholder name
+   * @return {@code true} if the template contains {@code ${name}}: its value is needed to render the template
+   */
+  public boolean uses(final String name) {
+    return Arrays.asList(names).contains(name);
+  }
+
+  /**
+   * Render the template in {@code buffer}, emptied first
+   * @param values - Value of each placeholder, {@code null} if none; called once per occurrence
+   * @param buffer - Buffer reused between renderings
+   * @return The rendered text
+   */
+  public String render(final Function<String, String> values, final StringBuilder buffer) {
+    buffer.setLength(0);
+    for (int id = 0; id < names.length; id++) {
+      buffer.append(literals[id]);
+      final String value = values.apply(names[id]);
+      if (value != null) {
+        buffer.append(value);
+      } else {
+        buffer.append("${").append(names[id]).append('}');
+      }
+    }
+    buffer.append(literals[names.length]);
+    return buffer.toString();
+  }
+}
@@ -0,0 +1,160 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts the lines of a report for each distinct combination of values of some columns, in a single scan.
+ * The values of each column are interned in a {@link PolyspaceReportDictionary}, so a combination is a tuple of codes
+ * counted in an open-addressing table: nothing is allocated for a line unless it has a new value.
+ */
+class PolyspaceReportAggregate {
+  private final int width;              // number of columns of a combination
+  private int[] tuples;                 // codes of each combination, width codes per combination
+  private long[] counts;                // count of each combination
+  private int size = 0;                 // number of combinations
+  private int[] table = new int[64];    // combination + 1, 0 for an empty slot
+
+  private PolyspaceReportAggregate(final int width) {
+    this.width = width;
+    this.tuples = new int[16 * width];
+    this.counts = new long[16];
+  }
+
+  /**
+   * @param report - Path to the report
+   * @param titles - Titles of the columns to group by
+   * @return The counts of each combination of values of the {@code titles} columns, most frequent first, then in order of appearance
+   * @throws IOException Error while reading {@code report}
+   */
+  static List<PolyspaceHelpersUtils.AggregateCount> aggregate(final Path report, final String[] titles) throws IOException {
+    final List<PolyspaceHelpersUtils.AggregateCount> result = new ArrayList<>();
+    final PolyspaceReportDictionary[] dictionaries = new PolyspaceReportDictionary[titles.length];
+    final PolyspaceReportAggregate groups = new PolyspaceReportAggregate(titles.length);
+    try (final PolyspaceReportLineReader reader = new PolyspaceReportLineReader(report))
+    {
+      if (!reader.readLine()) {
+        return result;
+      }
+      final String titleLine = reader.line();
+      final int[] colId = new int[titles.length];
+      int maxColumn = 0;
+      for (int t = 0; t < titles.length; t++) {
+        colId[t] = PolyspaceReportCriteria.columnId(titleLine, titles[t]);
+        maxColumn = Math.max(maxColumn, colId[t]);
+        dictionaries[t] = new PolyspaceReportDictionary();
+      }
+
+      final int[] fieldStart = new int[maxColumn + 1];
+      final int[] fieldEnd = new int[maxColumn + 1];
+      final int[] tuple = new int[titles.length];
+      while (reader.readLine()) {
+        // locate the columns up to the last one needed, missing columns are empty
+        final ByteBuffer buffer = reader.buffer();
+        final int end = reader.end();
+        int pos = reader.start();
+        for (int column = 0; column <= maxColumn; column++) {
+          if (pos > end) {
+            fieldStart[column] = end;
+            fieldEnd[column] = end;
+            continue;
+          }
+          int fieldPos = pos;
+          while ((fieldPos < end) && (buffer.get(fieldPos) != '\t')) {
+            fieldPos++;
+          }
+          fieldStart[column] = pos;
+          fieldEnd[column] = fieldPos;
+          pos = fieldPos + 1;
+        }
+        for (int t = 0; t < titles.length; t++) {
+          tuple[t] = dictionaries[t].code(buffer, fieldStart[colId[t]], fieldEnd[colId[t]]);
+        }
+        groups.add(tuple);
+      }
+    }
+
+    // most frequent combinations first, the sort is stable
+    final Integer[] order = new Integer[groups.size];
+    for (int g = 0; g < order.length; g++) {
+      order[g] = g;
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(groups.counts[b], groups.counts[a]));
+    for (final int g : order) {
+      final String[] key = new String[titles.length];
+      for (int t = 0; t < titles.length; t++) {
+        key[t] = new String(dictionaries[t].value(groups.tuples[g * groups.width + t]), StandardCharsets.UTF_8);
+      }
+      result.add(new PolyspaceHelpersUtils.AggregateCount(key, groups.counts[g]));
+    }
+    return result;
+  }
+
+  private void add(final int[] tuple) {
+    int index = hash(tuple, 0) & (table.length - 1);
+    while (table[index] != 0) {
+      final int group = table[index] - 1;
+      if (Arrays.equals(tuples, group * width, (group + 1) * width, tuple, 0, width)) {
+        counts[group]++;
+        return;
+      }
+      index = (index + 1) & (table.length - 1);
+    }
+    if (size == counts.length) {
+      counts = Arrays.copyOf(counts, 2 * size);
+      tuples = Arrays.copyOf(tuples, 2 * size * width);
+    }
+    System.arraycopy(tuple, 0, tuples, size * width, width);
+    counts[size] = 1;
+    table[index] = ++size;
+    if (2 * size > table.length) {
+      rehash();
+    }
+  }
+
+  private void rehash() {
+    table = new int[2 * table.length];
+    for (int group = 0; group < size; group++) {
+      int index = hash(tuples, group * width) & (table.length - 1);
+      while (table[index] != 0) {
+        index = (index + 1) & (table.length - 1);
+      }
+      table[index] = group + 1;
+    }
+  }
+
+  private int hash(final int[] codes, final int from) {
+    int hash = 1;
+    for (int t = from; t < from + width; t++) {
+      hash = 31 * hash + codes[t];
+    }
+    return hash ^ (hash >>> 16);
+  }
+}
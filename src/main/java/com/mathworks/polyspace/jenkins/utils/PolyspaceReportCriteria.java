@@ -0,0 +1,117 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Criteria of a report filter, resolved against the title line of a report.
+ * A line matches when each criterion column is equal to the associated value.
+ * Columns are found by scanning the tab separators of the line, without splitting it:
+ * matching a line does not allocate anything, and stops at the first criterion that fails.
+ */
+class PolyspaceReportCriteria implements PolyspaceReportMatcher {
+  private final int[] colId;        // criteria columns, in increasing order
+  private final byte[][] utf8Value; // criteria values, as UTF-8 bytes
+
+  /**
+   * @param titleLine - Line containing the report column names
+   * @param filters - An array of strings containing one or more "key" "value" pairs
+   */
+  PolyspaceReportCriteria(final String titleLine, final String[] filters) {
+    final int nCriteria = filters.length / 2;
+    final long[] sorted = new long[nCriteria];
+    for (int id = 0; id < nCriteria; id++) {
+      // sort the criteria by column, keeping track of their original order
+      sorted[id] = ((long) columnId(titleLine, filters[2 * id]) << 32) | id;
+    }
+    Arrays.sort(sorted);
+
+    colId = new int[nCriteria];
+    utf8Value = new byte[nCriteria][];
+    for (int id = 0; id < nCriteria; id++) {
+      colId[id] = (int) (sorted[id] >>> 32);
+      utf8Value[id] = filters[2 * (int) sorted[id] + 1].getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Get the column ID of {@code token} in {@code line}, where tokens are separated by tabs
+   * @param line - Line string containing the report column names
+   * @param token - Searched token
+   * @return The column ID
+   */
+  static int columnId(final String line, final String token)
+  {
+    int column = 0;
+    int start = 0;
+    while (start <= line.length()) {
+      int end = line.indexOf('\t', start);
+      if (end == -1) {
+        end = line.length();
+      }
+      if ((end - start == token.length()) && line.startsWith(token, start)) {
+        return column;
+      }
+      column++;
+      start = end + 1;
+    }
+    throw new RuntimeException("Title '" + token + "' does not exist");
+  }
+
+  @Override
+  public int[] columns() {
+    return colId.clone();
+  }
+
+  @Override
+  public boolean matches(final ByteBuffer buffer, final int start, final int end) {
+    int column = 0;
+    int pos = start;
+    for (int id = 0; id < colId.length; id++) {
+      // move to the start of the criterion column
+      while (column < colId[id]) {
+        while ((pos < end) && (buffer.get(pos) != '\t')) {
+          pos++;
+        }
+        if (pos == end) {
+          return false;     // missing column
+        }
+        pos++;
+        column++;
+      }
+      // compare the column with the criterion value
+      final byte[] expected = utf8Value[id];
+      if ((pos + expected.length > end) || ((pos + expected.length < end) && (buffer.get(pos + expected.length) != '\t'))) {
+        return false;
+      }
+      for (int i = 0; i < expected.length; i++) {
+        if (buffer.get(pos + i) != expected[i]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,128 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distinct values of a report column, looked up with the UTF-8 bytes of a field:
+ * each distinct value is copied once and gets a code, in the order values are found.
+ */
+class PolyspaceReportDictionary {
+  private final List<byte[]> values = new ArrayList<>();
+  private int[] table = new int[16];    // code + 1 of the values, 0 for an empty slot
+  private long bytes = 0;
+
+  /** @return The number of distinct values */
+  int size() {
+    return values.size();
+  }
+
+  /** @return The size of the values, each preceded by its length on 4 bytes */
+  long bytes() {
+    return bytes;
+  }
+
+  /**
+   * @param code - The code of a value
+   * @return The value, as UTF-8 bytes
+   */
+  byte[] value(final int code) {
+    return values.get(code);
+  }
+
+  /**
+   * @param buffer - Buffer containing the field
+   * @param start - Position of the first byte of the field in {@code buffer}
+   * @param end - Position after the last byte of the field in {@code buffer}
+   * @return The code of the field value, or -1 if it is not in the dictionary
+   */
+  int find(final ByteBuffer buffer, final int start, final int end) {
+    return table[slot(buffer, start, end)] - 1;
+  }
+
+  /**
+   * @param buffer - Buffer containing the field
+   * @param start - Position of the first byte of the field in {@code buffer}
+   * @param end - Position after the last byte of the field in {@code buffer}
+   * @return The code of the field value, added to the dictionary if needed
+   */
+  int code(final ByteBuffer buffer, final int start, final int end) {
+    final int index = slot(buffer, start, end);
+    if (table[index] != 0) {
+      return table[index] - 1;
+    }
+    final byte[] value = new byte[end - start];
+    buffer.get(start, value);
+    values.add(value);
+    bytes += 4 + value.length;
+    table[index] = values.size();
+    if (2 * values.size() > table.length) {
+      rehash();
+    }
+    return values.size() - 1;
+  }
+
+  /** @return The slot of the table holding the field value, or the empty slot where to add it */
+  private int slot(final ByteBuffer buffer, final int start, final int end) {
+    int index = hash(buffer, start, end) & (table.length - 1);
+    while ((table[index] != 0) && !equals(values.get(table[index] - 1), buffer, start, end)) {
+      index = (index + 1) & (table.length - 1);
+    }
+    return index;
+  }
+
+  private void rehash() {
+    table = new int[2 * table.length];
+    for (int code = 0; code < values.size(); code++) {
+      final byte[] value = values.get(code);
+      int index = hash(ByteBuffer.wrap(value), 0, value.length) & (table.length - 1);
+      while (table[index] != 0) {
+        index = (index + 1) & (table.length - 1);
+      }
+      table[index] = code + 1;
+    }
+  }
+
+  private static boolean equals(final byte[] value, final ByteBuffer buffer, final int start, final int end) {
+    if (value.length != end - start) {
+      return false;
+    }
+    for (int i = 0; i < value.length; i++) {
+      if (value[i] != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(final ByteBuffer buffer, final int start, final int end) {
+    int hash = 1;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + buffer.get(i);
+    }
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,413 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Differences between a report and a baseline report: the lines of the report that are not in the baseline are new,
+ * and the lines of the baseline that are not in the report anymore are fixed.
+ * Lines are identified by a key made of some of their columns. A key present n times in the baseline
+ * and m times in the report gives m - n new lines, or n - m fixed lines.
+ * <p>
+ * Lines are read as UTF-8 bytes with {@link PolyspaceReportLineReader}, and keys are built from the bytes of their fields,
+ * as for {@link PolyspaceReportCriteria}: no object is created per line, and lines are not decoded.
+ * The keys of the baseline are counted in a {@link PolyspaceReportDictionary}, and the new and fixed lines are kept in the order of the reports.
+ * When the keys do not fit in the memory budget, both reports are sorted by key in temporary files and merged:
+ * new and fixed lines are then written in the order of their keys.
+ */
+class PolyspaceReportDiff {
+  /** Estimated memory used by a key of the baseline in memory, in addition to its bytes */
+  private static final long KEY_OVERHEAD = 48;
+  /** Estimated memory used by a line being sorted, in addition to its bytes and the bytes of its key */
+  private static final long LINE_OVERHEAD = 64;
+
+  /** Line separator of the diff reports */
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+  /** Line separator of the temporary sorted runs */
+  private static final int RUN_SEPARATOR = '\n';
+
+  private final String[] keyTitles;
+  private final long memoryBudget;
+
+  /**
+   * @param keyTitles - Titles of the columns identifying a line
+   * @param memoryBudget - Memory allowed for the keys, in bytes, before sorting the reports in temporary files
+   */
+  PolyspaceReportDiff(final String[] keyTitles, final long memoryBudget) {
+    this.keyTitles = keyTitles;
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Key of the lines of a report, for the columns of its title line: the key columns of a line, separated by tabs,
+   * copied into a buffer reused for each line
+   */
+  private final class Key {
+    private final int[] colId;
+    private byte[] bytes = new byte[256];
+    private ByteBuffer view = ByteBuffer.wrap(bytes);
+    private int length = 0;
+
+    Key(final String titleLine) {
+      // an empty report has no title and no line
+      colId = new int[titleLine.isEmpty() ? 0 : keyTitles.length];
+      for (int k = 0; k < colId.length; k++) {
+        colId[k] = PolyspaceReportCriteria.columnId(titleLine, keyTitles[k]);
+      }
+    }
+
+    /** Key of the same columns as {@code other}, with its own buffer */
+    Key(final Key other) {
+      colId = other.colId;
+    }
+
+    /** Build the key of the current line of {@code reader} */
+    void of(final PolyspaceReportLineReader reader) {
+      final ByteBuffer buffer = reader.buffer();
+      final int end = reader.end();
+      length = 0;
+      for (int k = 0; k < colId.length; k++) {
+        if (k > 0) {
+          ensureCapacity(length + 1);
+          bytes[length++] = '\t';
+        }
+        // locate the column, a missing column is empty
+        int pos = reader.start();
+        for (int column = 0; (column < colId[k]) && (pos >= 0); column++) {
+          while ((pos < end) && (buffer.get(pos) != '\t')) {
+            pos++;
+          }
+          pos = (pos < end) ? pos + 1 : -1;
+        }
+        if (pos >= 0) {
+          int fieldEnd = pos;
+          while ((fieldEnd < end) && (buffer.get(fieldEnd) != '\t')) {
+            fieldEnd++;
+          }
+          append(buffer, pos, fieldEnd);
+        }
+      }
+    }
+
+    private void append(final ByteBuffer buffer, final int start, final int end) {
+      ensureCapacity(length + end - start);
+      buffer.get(start, bytes, length, end - start);
+      length += end - start;
+    }
+
+    private void ensureCapacity(final int capacity) {
+      if (capacity > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(capacity, 2 * bytes.length));
+        view = ByteBuffer.wrap(bytes);
+      }
+    }
+
+    /** @return A copy of the key */
+    byte[] copy() {
+      return Arrays.copyOf(bytes, length);
+    }
+  }
+
+  /**
+   * Write the new lines of {@code report} into {@code newReport} and the fixed lines of {@code baseline} into {@code fixedReport}
+   * @param report - Path to the report
+   * @param baseline - Path to the baseline report
+   * @param newReport - Path to the report of new lines
+   * @param fixedReport - Path to the report of fixed lines
+   * @return The number of new lines and the number of fixed lines
+   * @throws IOException Error while accessing the reports
+   */
+  long[] diff(final Path report, final Path baseline, final Path newReport, final Path fixedReport) throws IOException {
+    final PolyspaceReportDictionary baselineKeys = new PolyspaceReportDictionary();
+    final int[] counts = readKeys(baseline, baselineKeys);
+    if (counts == null) {
+      return diffSorted(report, baseline, newReport, fixedReport);
+    }
+    final long[] diffCounts = new long[2];
+
+    // new lines: lines of the report whose key is not left in the baseline
+    try (final PolyspaceReportLineReader reader = new PolyspaceReportLineReader(report);
+         final OutputStream out = PolyspaceUtils.newOutputStream(newReport, false))
+    {
+      final Key key = new Key(readTitle(reader, out));
+      while (reader.readLine()) {
+        key.of(reader);
+        final int code = baselineKeys.find(key.view, 0, key.length);
+        if ((code >= 0) && (counts[code] > 0)) {
+          counts[code]--;
+        } else {
+          writeLine(reader, out);
+          diffCounts[0]++;
+        }
+      }
+    }
+
+    // fixed lines: the lines of the baseline whose key is left, first occurrences first
+    try (final PolyspaceReportLineReader reader = new PolyspaceReportLineReader(baseline);
+         final OutputStream out = PolyspaceUtils.newOutputStream(fixedReport, false))
+    {
+      final Key key = new Key(readTitle(reader, out));
+      while (reader.readLine()) {
+        key.of(reader);
+        final int code = baselineKeys.find(key.view, 0, key.length);
+        if (counts[code] > 0) {
+          counts[code]--;
+          writeLine(reader, out);
+          diffCounts[1]++;
+        }
+      }
+    }
+    return diffCounts;
+  }
+
+  /**
+   * @param keys - Receives the keys of {@code baseline}
+   * @return The number of occurrences of each key of {@code baseline}, by code of {@code keys}, or {@code null} if they do not fit in the memory budget
+   */
+  private int[] readKeys(final Path baseline, final PolyspaceReportDictionary keys) throws IOException {
+    int[] counts = new int[1024];
+    try (final PolyspaceReportLineReader reader = new PolyspaceReportLineReader(baseline))
+    {
+      if (!reader.readLine()) {
+        return counts;
+      }
+      final Key key = new Key(reader.line());
+      while (reader.readLine()) {
+        key.of(reader);
+        final int code = keys.code(key.view, 0, key.length);
+        if (code == counts.length) {
+          counts = Arrays.copyOf(counts, 2 * counts.length);
+        }
+        counts[code]++;
+        if (keys.bytes() + KEY_OVERHEAD * keys.size() + 4L * counts.length > memoryBudget) {
+          return null;
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Diff of the reports sorted by key
+   */
+  private long[] diffSorted(final Path report, final Path baseline, final Path newReport, final Path fixedReport) throws IOException {
+    final long[] counts = new long[2];
+    final List<Path> temporaryFiles = new ArrayList<>();
+    try (final SortedReport current = sort(report, temporaryFiles);
+         final SortedReport previous = sort(baseline, temporaryFiles);
+         final OutputStream newOut = PolyspaceUtils.newOutputStream(newReport, false);
+         final OutputStream fixedOut = PolyspaceUtils.newOutputStream(fixedReport, false))
+    {
+      newOut.write(current.title);
+      newOut.write(LINE_SEPARATOR);
+      fixedOut.write(previous.title);
+      fixedOut.write(LINE_SEPARATOR);
+      while ((current.line != null) || (previous.line != null)) {
+        final int compare = (current.line == null) ? 1 : (previous.line == null) ? -1 : compare(current.line, previous.line);
+        if (compare < 0) {
+          writeLine(current.line.reader, newOut);
+          counts[0]++;
+          current.next();
+        } else if (compare > 0) {
+          writeLine(previous.line.reader, fixedOut);
+          counts[1]++;
+          previous.next();
+        } else {
+          current.next();
+          previous.next();
+        }
+      }
+    } finally {
+      for (final Path temporaryFile : temporaryFiles) {
+        Files.deleteIfExists(temporaryFile);
+      }
+    }
+    return counts;
+  }
+
+  /** Order of the keys of the current lines of two runs: unsigned bytes, which is the order of the code points for UTF-8 keys */
+  private static int compare(final Run a, final Run b) {
+    return Arrays.compareUnsigned(a.key.bytes, 0, a.key.length, b.key.bytes, 0, b.key.length);
+  }
+
+  /**
+   * Lines of a report sorted by key, read from a merge of sorted runs
+   */
+  private final class SortedReport implements Closeable {
+    private final byte[] title;
+    private final Key keyOf;
+    private final List<Run> runs = new ArrayList<>();
+    private final PriorityQueue<Run> queue = new PriorityQueue<>(((Comparator<Run>) PolyspaceReportDiff::compare).thenComparingInt(run -> run.index));
+    private Run line;     // run of the current line, valid until the next call to next
+
+    SortedReport(final byte[] title, final String titleLine) {
+      this.title = title;
+      this.keyOf = new Key(titleLine);
+    }
+
+    void addRun(final Path path) throws IOException {
+      final Run run = new Run(new PolyspaceReportLineReader(path), runs.size(), keyOf);
+      runs.add(run);
+      if (run.advance()) {
+        queue.add(run);
+      }
+    }
+
+    /** Move to the next line in the order of the keys */
+    void next() throws IOException {
+      // the run of the previous line moves to its next line only now, so that the previous line is not overwritten before
+      if ((line != null) && line.advance()) {
+        queue.add(line);
+      }
+      line = queue.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+      for (final Run run : runs) {
+        run.reader.close();
+      }
+    }
+  }
+
+  /**
+   * Sorted run of lines in a temporary file, and the key of its current line
+   */
+  private final class Run {
+    final PolyspaceReportLineReader reader;
+    final int index;
+    final Key key;
+
+    Run(final PolyspaceReportLineReader reader, final int index, final Key keyOf) {
+      this.reader = reader;
+      this.index = index;
+      this.key = new Key(keyOf);
+    }
+
+    /** @return {@code false} if there is no more line in the run */
+    boolean advance() throws IOException {
+      if (!reader.readLine()) {
+        return false;
+      }
+      key.of(reader);
+      return true;
+    }
+  }
+
+  /**
+   * Line being sorted, with its key
+   */
+  private static final class SortedLine {
+    final byte[] key;
+    final byte[] line;
+
+    SortedLine(final byte[] key, final byte[] line) {
+      this.key = key;
+      this.line = line;
+    }
+  }
+
+  /**
+   * Sort the lines of {@code report} by key, in runs of lines that fit in the memory budget
+   */
+  private SortedReport sort(final Path report, final List<Path> temporaryFiles) throws IOException {
+    try (final PolyspaceReportLineReader reader = new PolyspaceReportLineReader(report))
+    {
+      final SortedReport sorted = reader.readLine() ? new SortedReport(copyLine(reader), reader.line()) : new SortedReport(new byte[0], "");
+      try {
+        final List<SortedLine> lines = new ArrayList<>();
+        long memory = 0;
+        while (reader.readLine()) {
+          sorted.keyOf.of(reader);
+          final SortedLine line = new SortedLine(sorted.keyOf.copy(), copyLine(reader));
+          lines.add(line);
+          memory += line.key.length + line.line.length + LINE_OVERHEAD;
+          if (memory > memoryBudget) {
+            sorted.addRun(writeRun(lines, temporaryFiles));
+            lines.clear();
+            memory = 0;
+          }
+        }
+        if (!lines.isEmpty()) {
+          sorted.addRun(writeRun(lines, temporaryFiles));
+        }
+        sorted.next();
+      } catch (IOException | RuntimeException e) {
+        sorted.close();
+        throw e;
+      }
+      return sorted;
+    }
+  }
+
+  private static Path writeRun(final List<SortedLine> lines, final List<Path> temporaryFiles) throws IOException {
+    // the sort is stable: lines with the same key stay in the order of the report
+    lines.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+    final Path run = Files.createTempFile("polyspace-diff-", ".tsv");
+    temporaryFiles.add(run);
+    try (final OutputStream out = PolyspaceUtils.newOutputStream(run, false))
+    {
+      for (final SortedLine line : lines) {
+        out.write(line.line);
+        out.write(RUN_SEPARATOR);
+      }
+    }
+    return run;
+  }
+
+  private static byte[] copyLine(final PolyspaceReportLineReader reader) {
+    final byte[] line = new byte[reader.end() - reader.start()];
+    reader.buffer().get(reader.start(), line);
+    return line;
+  }
+
+  /**
+   * Copy the title line of {@code reader} to {@code out}
+   * @return The title line, empty for an empty report
+   */
+  private static String readTitle(final PolyspaceReportLineReader reader, final OutputStream out) throws IOException {
+    if (!reader.readLine()) {
+      out.write(LINE_SEPARATOR);
+      return "";
+    }
+    writeLine(reader, out);
+    return reader.line();
+  }
+
+  private static void writeLine(final PolyspaceReportLineReader reader, final OutputStream out) throws IOException {
+    reader.writeLine(out);
+    out.write(LINE_SEPARATOR);
+  }
+}
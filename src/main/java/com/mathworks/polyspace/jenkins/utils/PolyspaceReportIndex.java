@@ -0,0 +1,491 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar index of a report, stored in a sidecar file next to the report.
+ * Each column is dictionary-encoded: the index stores the distinct values of the column and, for each line, the code of its value.
+ * A column with too many distinct values - more than {@link #MAX_DICTIONARY_VALUES} or {@link #MAX_DICTIONARY_BYTES} - is not encoded:
+ * the filters on such a column read the lines from the report, at the position stored in the index.
+ * The index also stores the position of each line in the report, so that:
+ * <ul>
+ *    <li>lines are counted without reading the report</li>
+ *    <li>lines are filtered by reading only the codes of the columns used by the filter, and only the matching lines of the report</li>
+ * </ul>
+ * The index records the size and modification time of the report, and is rebuilt when they change.
+ * <p>
+ * Layout of the index file, in big-endian order:
+ * <pre>
+ *   int magic, int version, long report size, long report modification time
+ *   int title length, title bytes
+ *   int number of columns, int number of lines
+ *   long[columns] position of each column block
+ *   long[lines] position of each line in the report, int[lines] length of each line, line terminator excluded
+ *   column block: int number of values, (int length, bytes)[values], byte code width, codes[lines]
+ *              or int -1 for a column that is not encoded
+ * </pre>
+ * Code 0 is a missing column - shorter line - and code {@code i > 0} is the value {@code i - 1} of the dictionary.
+ * <p>
+ * While building, the codes are written to a temporary file per column: only the dictionaries and the position and length
+ * of each line - 12 bytes per line - are kept in memory.
+ */
+final class PolyspaceReportIndex implements Closeable {
+  private static final int MAGIC = 0x50534958;    // "PSIX"
+  private static final int VERSION = 2;
+  private static final int MAX_DICTIONARY_VALUES = 0xFFFE;          // codes on at most 2 bytes
+  private static final long MAX_DICTIONARY_BYTES = 4L * 1024 * 1024;
+  private static final int NOT_ENCODED = -1;
+
+  private final FileChannel indexChannel;
+  private final FileChannel reportChannel;
+  private final byte[] title;
+  private final int nColumns;
+  private final int nLines;
+  private final long[] columnBlock;
+  private final long linesBlock;
+
+  private PolyspaceReportIndex(final FileChannel indexChannel, final FileChannel reportChannel) throws IOException {
+    this.indexChannel = indexChannel;
+    this.reportChannel = reportChannel;
+    final ByteBuffer header = read(indexChannel, 0, 28);
+    header.position(24);
+    title = new byte[header.getInt()];
+    read(indexChannel, 28, title.length).get(title);
+    final ByteBuffer sizes = read(indexChannel, 28 + title.length, 8);
+    nColumns = sizes.getInt();
+    nLines = sizes.getInt();
+    columnBlock = new long[nColumns];
+    read(indexChannel, 36 + title.length, 8L * nColumns).asLongBuffer().get(columnBlock);
+    linesBlock = 36 + title.length + 8L * nColumns;
+  }
+
+  /**
+   * Open the index of {@code report}, rebuilding it if the report changed since the index was built
+   * @param report - Path to the report
+   * @param index - Path to the index of the report
+   * @return The index, or {@code null} if {@code index} does not exist
+   * @throws IOException Error while accessing {@code report} or {@code index}
+   */
+  static PolyspaceReportIndex open(final Path report, final Path index) throws IOException {
+    if (!Files.isRegularFile(index)) {
+      return null;
+    }
+    if (!isUpToDate(report, index)) {
+      build(report, index);
+    }
+    final FileChannel indexChannel = FileChannel.open(index, StandardOpenOption.READ);
+    try {
+      return new PolyspaceReportIndex(indexChannel, FileChannel.open(report, StandardOpenOption.READ));
+    } catch (IOException | RuntimeException e) {
+      indexChannel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param report - Path to the report
+   * @param index - Path to the index of the report
+   * @return {@code true} if {@code index} was built for the current content of {@code report}
+   * @throws IOException Error while accessing {@code report} or {@code index}
+   */
+  static boolean isUpToDate(final Path report, final Path index) throws IOException {
+    try (final FileChannel indexChannel = FileChannel.open(index, StandardOpenOption.READ)) {
+      if (indexChannel.size() < 28) {
+        return false;
+      }
+      final ByteBuffer header = read(indexChannel, 0, 24);
+      return (header.getInt() == MAGIC)
+          && (header.getInt() == VERSION)
+          && (header.getLong() == Files.size(report))
+          && (header.getLong() == Files.getLastModifiedTime(report).toMillis());
+    }
+  }
+
+  /** @return The number of lines of the report, title excluded */
+  int lines() {
+    return nLines;
+  }
+
+  /** @return The title line of the report, decoded */
+  String titleLine() {
+    return new String(title, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write the title line, without its line terminator
+   * @param out - The output stream
+   * @throws IOException Error while writing
+   */
+  void writeTitle(final OutputStream out) throws IOException {
+    out.write(title);
+  }
+
+  /**
+   * Write the lines of the report selected by {@code matcher}, in the order of the report.
+   * The matcher is given lines rebuilt from the dictionaries of its columns: the other columns are empty.
+   * @param matcher - The matcher of the lines to write
+   * @param out - The output stream
+   * @param separator - The line separator written after each line
+   * @return The number of lines written
+   * @throws IOException Error while reading the index or the report, or while writing
+   */
+  long writeMatches(final PolyspaceReportMatcher matcher, final OutputStream out, final byte[] separator) throws IOException {
+    final int[] columns = matcher.columns();
+    final int maxColumn = (columns.length == 0) ? -1 : columns[columns.length - 1];
+    final byte[][][] values = new byte[maxColumn + 1][][];
+    final Codes[] codes = new Codes[maxColumn + 1];
+    boolean encoded = true;
+    for (final int column : columns) {
+      if ((values[column] == null) && (column < nColumns)) {
+        final ByteBuffer block = read(indexChannel, columnBlock[column], blockSize(column));
+        values[column] = readValues(block);
+        if (values[column] == null) {
+          encoded = false;    // the lines are matched as read from the report
+          break;
+        }
+        codes[column] = new Codes(block);
+      }
+    }
+    final ByteBuffer starts = map(linesBlock, 8L * nLines);
+    final ByteBuffer lengths = map(linesBlock + 8L * nLines, 4L * nLines);
+
+    byte[] line = new byte[256];
+    ByteBuffer lineView = ByteBuffer.wrap(line);
+    long written = 0;
+    for (int l = 0; l < nLines; l++) {
+      if ((l & 0xFFFF) == 0) {
+        PolyspaceUtils.checkInterrupted();
+      }
+      // rebuild the columns used by the matcher, or read the whole line if a column is not encoded
+      int length = 0;
+      for (int column = 0; encoded && (column <= maxColumn); column++) {
+        byte[] value = null;
+        if (values[column] != null) {
+          final int code = codes[column].get(l);
+          if (code == 0) {
+            break;      // missing column: the line stops before
+          }
+          value = values[column][code - 1];
+        }
+        final int needed = length + 1 + ((value == null) ? 0 : value.length);
+        if (needed > line.length) {
+          line = Arrays.copyOf(line, Math.max(needed, 2 * line.length));
+          lineView = ByteBuffer.wrap(line);
+        }
+        if (column > 0) {
+          line[length++] = '\t';
+        }
+        if (value != null) {
+          System.arraycopy(value, 0, line, length, value.length);
+          length += value.length;
+        }
+      }
+      final int reportLength = lengths.getInt(4 * l);
+      if (!encoded) {
+        if (reportLength > line.length) {
+          line = new byte[Math.max(reportLength, 2 * line.length)];
+          lineView = ByteBuffer.wrap(line);
+        }
+        readLine(lineView, starts.getLong(8 * l), reportLength);
+        length = reportLength;
+      }
+      if (matcher.matches(lineView, 0, length)) {
+        // copy the line from the report
+        if (encoded) {
+          if (reportLength > line.length) {
+            line = new byte[Math.max(reportLength, 2 * line.length)];
+            lineView = ByteBuffer.wrap(line);
+          }
+          readLine(lineView, starts.getLong(8 * l), reportLength);
+        }
+        out.write(line, 0, reportLength);
+        out.write(separator);
+        written++;
+      }
+    }
+    return written;
+  }
+
+  private void readLine(final ByteBuffer lineView, final long start, final int length) throws IOException {
+    lineView.clear().limit(length);
+    long position = start;
+    while (lineView.hasRemaining()) {
+      final int read = reportChannel.read(lineView, position);
+      if (read < 0) {
+        throw new IOException("Report has changed while reading its index");
+      }
+      position += read;
+    }
+    lineView.clear();
+  }
+
+  private long blockSize(final int column) throws IOException {
+    return ((column + 1 < nColumns) ? columnBlock[column + 1] : indexChannel.size()) - columnBlock[column];
+  }
+
+  private ByteBuffer map(final long position, final long size) throws IOException {
+    return indexChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+  }
+
+  /** @return The dictionary of a column block, or {@code null} if the column is not encoded */
+  private static byte[][] readValues(final ByteBuffer block) {
+    final int size = block.getInt();
+    if (size == NOT_ENCODED) {
+      return null;
+    }
+    final byte[][] values = new byte[size][];
+    for (int v = 0; v < values.length; v++) {
+      values[v] = new byte[block.getInt()];
+      block.get(values[v]);
+    }
+    return values;
+  }
+
+  /**
+   * Codes of a column, stored on 1, 2 or 4 bytes
+   */
+  private static final class Codes {
+    private final ByteBuffer codes;
+    private final int width;
+
+    Codes(final ByteBuffer block) {
+      width = block.get();
+      codes = block.slice();
+    }
+
+    int get(final int line) {
+      switch (width) {
+        case 1:  return codes.get(line) & 0xFF;
+        case 2:  return codes.getShort(2 * line) & 0xFFFF;
+        default: return codes.getInt(4 * line);
+      }
+    }
+  }
+
+  private static ByteBuffer read(final FileChannel channel, final long position, final long size) throws IOException {
+    if (size > 64 * 1024) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      final int read = channel.read(buffer, pos);
+      if (read < 0) {
+        throw new IOException("Truncated report index");
+      }
+      pos += read;
+    }
+    return buffer.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      reportChannel.close();
+    } finally {
+      indexChannel.close();
+    }
+  }
+
+  /**
+   * Build the index of {@code report} into {@code index}, replacing any previous index
+   * @param report - Path to the report
+   * @param index - Path to the index to build
+   * @throws IOException Error while accessing {@code report} or {@code index}
+   */
+  static void build(final Path report, final Path index) throws IOException {
+    // size and time are taken before reading: if the report changes while being indexed, the index will be rebuilt
+    final long reportSize = Files.size(report);
+    final long reportTime = Files.getLastModifiedTime(report).toMillis();
+
+    final Path parent = index.toAbsolutePath().getParent();
+    final String name = String.valueOf(index.getFileName());
+    byte[] title = new byte[0];
+    PolyspaceReportDictionary[] dictionaries = new PolyspaceReportDictionary[0];
+    final List<Path> spools = new ArrayList<>();
+    long[] starts = new long[1024];
+    int[] lengths = new int[1024];
+    int nLines = 0;
+    final Path temp = Files.createTempFile(parent, name, ".tmp");
+    try {
+      DataOutputStream[] spooled = new DataOutputStream[0];
+      try (final PolyspaceReportLineReader reader = new PolyspaceReportLineReader(report)) {
+        if (reader.readLine()) {
+          final ByteBuffer buffer = reader.buffer();
+          title = new byte[reader.end() - reader.start()];
+          buffer.get(reader.start(), title);
+          int nColumns = 1;
+          for (final byte b : title) {
+            if (b == '\t') {
+              nColumns++;
+            }
+          }
+          dictionaries = new PolyspaceReportDictionary[nColumns];
+          spooled = new DataOutputStream[nColumns];
+          for (int column = 0; column < nColumns; column++) {
+            dictionaries[column] = new PolyspaceReportDictionary();
+            spools.add(Files.createTempFile(parent, name + "." + column, ".tmp"));
+            spooled[column] = new DataOutputStream(PolyspaceUtils.newOutputStream(spools.get(column), false));
+          }
+        }
+        while (reader.readLine()) {
+          if (nLines == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * nLines);
+            lengths = Arrays.copyOf(lengths, 2 * nLines);
+          }
+          final ByteBuffer buffer = reader.buffer();
+          final int end = reader.end();
+          starts[nLines] = reader.offset();
+          lengths[nLines] = end - reader.start();
+          int pos = reader.start();
+          for (int column = 0; column < spooled.length; column++) {
+            if (pos > end) {
+              // missing column: the line stops before
+              if (dictionaries[column] != null) {
+                spooled[column].writeInt(0);
+              }
+              continue;
+            }
+            int fieldEnd = pos;
+            while ((fieldEnd < end) && (buffer.get(fieldEnd) != '\t')) {
+              fieldEnd++;
+            }
+            if (dictionaries[column] != null) {
+              spooled[column].writeInt(dictionaries[column].code(buffer, pos, fieldEnd) + 1);
+              if ((dictionaries[column].size() > MAX_DICTIONARY_VALUES) || (dictionaries[column].bytes() > MAX_DICTIONARY_BYTES)) {
+                // too many distinct values: the column is not encoded
+                dictionaries[column] = null;
+                spooled[column].close();
+                Files.delete(spools.get(column));
+              }
+            }
+            pos = fieldEnd + 1;
+          }
+          nLines++;
+        }
+      } finally {
+        for (final DataOutputStream spool : spooled) {
+          if (spool != null) {
+            spool.close();
+          }
+        }
+      }
+
+      // compute the position of each column block
+      final int nColumns = dictionaries.length;
+      final long[] columnBlock = new long[nColumns];
+      long position = 36 + title.length + 8L * nColumns + 12L * nLines;
+      for (int column = 0; column < nColumns; column++) {
+        columnBlock[column] = position;
+        if (dictionaries[column] == null) {
+          position += 4;
+        } else {
+          position += 4 + dictionaries[column].bytes() + 1 + (long) codeWidth(dictionaries[column].size()) * nLines;
+        }
+      }
+
+      // write the index next to it, then replace it, so that a partial index is never read
+      try (final DataOutputStream out = new DataOutputStream(PolyspaceUtils.newOutputStream(temp, false))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(reportSize);
+        out.writeLong(reportTime);
+        out.writeInt(title.length);
+        out.write(title);
+        out.writeInt(nColumns);
+        out.writeInt(nLines);
+        for (final long block : columnBlock) {
+          out.writeLong(block);
+        }
+        for (int l = 0; l < nLines; l++) {
+          out.writeLong(starts[l]);
+        }
+        for (int l = 0; l < nLines; l++) {
+          out.writeInt(lengths[l]);
+        }
+        for (int column = 0; column < nColumns; column++) {
+          final PolyspaceReportDictionary dictionary = dictionaries[column];
+          if (dictionary == null) {
+            out.writeInt(NOT_ENCODED);
+            continue;
+          }
+          out.writeInt(dictionary.size());
+          for (int code = 0; code < dictionary.size(); code++) {
+            final byte[] value = dictionary.value(code);
+            out.writeInt(value.length);
+            out.write(value);
+          }
+          dictionaries[column] = null;    // release the values before reading the codes of the next columns
+          final int width = codeWidth(dictionary.size());
+          out.writeByte(width);
+          try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spools.get(column))))) {
+            for (int l = 0; l < nLines; l++) {
+              final int code = in.readInt();
+              switch (width) {
+                case 1:  out.writeByte(code); break;
+                case 2:  out.writeShort(code); break;
+                default: out.writeInt(code); break;
+              }
+            }
+          }
+        }
+      }
+      try {
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+      for (final Path spool : spools) {
+        Files.deleteIfExists(spool);
+      }
+    }
+  }
+
+  /** @return The number of bytes of the codes of a column of {@code size} distinct values - code 0 is reserved */
+  private static int codeWidth(final int size) {
+    if (size < 0xFF) {
+      return 1;
+    }
+    return (size < 0xFFFF) ? 2 : 4;
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the lines of a report as UTF-8 bytes, without creating any object per line.
+ * Lines are terminated by "\n", "\r" or "\r\n", as for {@link java.io.BufferedReader#readLine}.
+ * The current line is only valid until the next call to {@link #readLine}.
+ */
+class PolyspaceReportLineReader implements Closeable {
+  private final InputStream in;
+  private byte[] buffer = new byte[64 * 1024];
+  private ByteBuffer view = ByteBuffer.wrap(buffer);
+  private long position = 0;  // position of buffer in the file
+  private int limit = 0;      // end of the valid bytes of buffer
+  private int start = 0;      // start of the current line
+  private int end = 0;        // end of the current line, line terminator excluded
+  private int next = 0;       // start of the next line
+  private boolean eof = false;
+
+  PolyspaceReportLineReader(final Path path) throws IOException {
+    this.in = Files.newInputStream(path);
+  }
+
+  /**
+   * Move to the next line
+   * @return {@code false} if there is no more line
+   * @throws IOException Error while reading
+   */
+  boolean readLine() throws IOException {
+    start = next;
+    int pos = start;
+    while (true) {
+      while ((pos < limit) && (buffer[pos] != '\n') && (buffer[pos] != '\r')) {
+        pos++;
+      }
+      if ((pos < limit) && !((buffer[pos] == '\r') && (pos + 1 == limit) && !eof)) {
+        end = pos;
+        next = ((buffer[pos] == '\r') && (pos + 1 < limit) && (buffer[pos + 1] == '\n')) ? pos + 2 : pos + 1;
+        return true;
+      }
+      if (eof) {
+        end = limit;
+        next = limit;
+        return start < limit;
+      }
+      // need more bytes: keep the current line at the beginning of the buffer and fill the rest
+      pos -= start;
+      fill();
+    }
+  }
+
+  private void fill() throws IOException {
+    PolyspaceUtils.checkInterrupted();
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, limit - start);
+      position += start;
+      limit -= start;
+      start = 0;
+    } else if (limit == buffer.length) {
+      // the line does not fit in the buffer
+      final byte[] larger = new byte[2 * buffer.length];
+      System.arraycopy(buffer, 0, larger, 0, limit);
+      buffer = larger;
+      view = ByteBuffer.wrap(buffer);
+    }
+    final int read = in.read(buffer, limit, buffer.length - limit);
+    if (read == -1) {
+      eof = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  /** @return The buffer containing the current line */
+  ByteBuffer buffer() { return view; }
+  /** @return The position of the current line in {@link #buffer} */
+  int start() { return start; }
+  /** @return The position after the current line in {@link #buffer}, line terminator excluded */
+  int end() { return end; }
+
+  /** @return The position of the current line in the file */
+  long offset() { return position + start; }
+
+  /** @return The current line, decoded */
+  String line() {
+    return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write the current line, without its line terminator
+   * @param out - The output stream
+   * @throws IOException Error while writing
+   */
+  void writeLine(final OutputStream out) throws IOException {
+    out.write(buffer, start, end - start);
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,42 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Selects the lines of a report
+ */
+interface PolyspaceReportMatcher {
+  /**
+   * @param buffer - Buffer containing a line of the report encoded in UTF-8
+   * @param start - Position of the first byte of the line in {@code buffer}
+   * @param end - Position after the last byte of the line in {@code buffer}, line terminator excluded
+   * @return {@code true} if the line is selected
+   */
+  boolean matches(ByteBuffer buffer, int start, int end);
+
+  /**
+   * @return The columns read by {@link #matches}, in increasing order - other columns do not change the result
+   */
+  int[] columns();
+}
@@ -0,0 +1,100 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * Output streams appending to many filtered reports, with a limited number of files open at the same time:
+ * the least recently used stream is closed to open another one, and opened again in append mode when needed.
+ * The checksum of each report is updated with the bytes written, whatever the number of times its stream is opened.
+ */
+class PolyspaceReportOutputs implements Closeable {
+  private final Path[] paths;
+  private final Checksum[] checksums;
+  private final int maxOpen;
+  private final LinkedHashMap<Integer, OutputStream> open = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * @param paths - Paths to the reports, that exist
+   * @param checksums - Checksums updated with the bytes written to each report
+   * @param maxOpen - Maximum number of reports open at the same time
+   */
+  PolyspaceReportOutputs(final Path[] paths, final Checksum[] checksums, final int maxOpen) {
+    this.paths = paths;
+    this.checksums = checksums;
+    this.maxOpen = Math.max(1, maxOpen);
+  }
+
+  /**
+   * @param report - Index of a report
+   * @return The stream appending to the report, valid until the next call
+   * @throws IOException Error while opening the report, or while closing the least recently used one
+   */
+  OutputStream get(final int report) throws IOException {
+    OutputStream stream = open.get(report);
+    if (stream == null) {
+      if (open.size() >= maxOpen) {
+        final Iterator<OutputStream> eldest = open.values().iterator();
+        final OutputStream closed = eldest.next();
+        eldest.remove();
+        closed.close();
+      }
+      stream = new CheckedOutputStream(PolyspaceUtils.newOutputStream(paths[report], true), checksums[report]);
+      open.put(report, stream);
+    }
+    return stream;
+  }
+
+  /**
+   * Close all the open streams, even if some fail
+   * @throws IOException Error of the first stream that failed to close, with the errors of the next ones suppressed
+   */
+  @Override
+  public void close() throws IOException {
+    IOException error = null;
+    for (final Map.Entry<Integer, OutputStream> entry : open.entrySet()) {
+      try {
+        entry.getValue().close();
+      } catch (IOException e) {
+        if (error == null) {
+          error = e;
+        } else {
+          error.addSuppressed(e);
+        }
+      }
+    }
+    open.clear();
+    if (error != null) {
+      throw error;
+    }
+  }
+}
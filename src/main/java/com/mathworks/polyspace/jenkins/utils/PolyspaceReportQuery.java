@@ -0,0 +1,659 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A filter expression on the columns of a report, for instance:
+ * <pre>Group = Programming and (Information in ("Impact: High", "Impact: Medium") or not Function ~ '^bug_')</pre>
+ * <ul>
+ *    <li>{@code column = value}, {@code column != value}: the column is equal (not equal) to value</li>
+ *    <li>{@code column in (value1, value2...)}, {@code column not in (...)}: the column is (not) one of the values</li>
+ *    <li>{@code column ~ regex}, {@code column !~ regex}: the column contains (does not contain) a match of the regular expression</li>
+ *    <li>{@code column < number}, {@code <=}, {@code >}, {@code >=}: the column is a number compared to number</li>
+ *    <li>{@code and}, {@code or}, {@code not} and parentheses combine conditions - {@code and} has precedence over {@code or}</li>
+ * </ul>
+ * Columns and values containing spaces or special characters are quoted with ' or ", except function names such as foo().
+ * The expression is parsed once into a tree of conditions, with hashed sets for the {@code in} lists and compiled patterns for
+ * the regular expressions. The tree is then bound to the title line of a report to select its lines.
+ */
+public final class PolyspaceReportQuery {
+
+  private final String expression;
+  private final Node root;
+
+  private PolyspaceReportQuery(final String expression, final Node root) {
+    this.expression = expression;
+    this.root = root;
+  }
+
+  /**
+   * @param expression - The filter expression
+   * @return The parsed filter expression
+   */
+  public static PolyspaceReportQuery parse(final String expression) {
+    return new PolyspaceReportQuery(expression, new Parser(expression).parse());
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  /**
+   * @param titleLine - Line containing the report column names
+   * @return A matcher for the lines of the report - a matcher is not thread safe
+   */
+  PolyspaceReportMatcher matcher(final String titleLine) {
+    final Columns columns = new Columns(titleLine);
+    final Condition condition = root.bind(columns);
+    return new Row(condition, columns.maxColumn + 1, columns.used.stream().toArray());
+  }
+
+  /**
+   * Resolves the column names of the title line, keeping track of the largest column used
+   */
+  private static final class Columns {
+    private final String titleLine;
+    private final BitSet used = new BitSet();
+    private int maxColumn = -1;
+
+    Columns(final String titleLine) {
+      this.titleLine = titleLine;
+    }
+
+    int id(final String column) {
+      final int id = PolyspaceReportCriteria.columnId(titleLine, column);
+      maxColumn = Math.max(maxColumn, id);
+      used.set(id);
+      return id;
+    }
+  }
+
+  /**
+   * A line of the report being matched: the fields are located once, and only up to the last column needed
+   */
+  private static final class Row implements PolyspaceReportMatcher {
+    private final Condition condition;
+    private final int[] columns;
+    private final int[] fieldStart;
+    private final int[] fieldEnd;
+    private ByteBuffer buffer;
+    private int end;
+    private int scanned;    // number of fields located
+    private int scanPos;    // start of the next field to locate
+
+    Row(final Condition condition, final int nColumns, final int[] columns) {
+      this.condition = condition;
+      this.columns = columns;
+      this.fieldStart = new int[nColumns];
+      this.fieldEnd = new int[nColumns];
+    }
+
+    @Override
+    public boolean matches(final ByteBuffer buffer, final int start, final int end) {
+      this.buffer = buffer;
+      this.end = end;
+      this.scanned = 0;
+      this.scanPos = start;
+      return condition.test(this);
+    }
+
+    @Override
+    public int[] columns() {
+      return columns.clone();
+    }
+
+    /**
+     * @return {@code false} if the line has no column {@code column}
+     */
+    boolean locate(final int column) {
+      while (scanned <= column) {
+        if (scanPos > end) {
+          return false;
+        }
+        int pos = scanPos;
+        while ((pos < end) && (buffer.get(pos) != '\t')) {
+          pos++;
+        }
+        fieldStart[scanned] = scanPos;
+        fieldEnd[scanned] = pos;
+        scanned++;
+        scanPos = pos + 1;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * A condition bound to the columns of a report
+   */
+  private interface Condition {
+    boolean test(Row row);
+  }
+
+  /**
+   * A node of the parsed expression
+   */
+  private interface Node {
+    Condition bind(Columns columns);
+  }
+
+  private static final class Or implements Node {
+    private final List<Node> operands;
+    Or(final List<Node> operands) { this.operands = operands; }
+
+    public Condition bind(final Columns columns) {
+      final Condition[] conditions = bindAll(operands, columns);
+      return row -> {
+        for (final Condition condition : conditions) {
+          if (condition.test(row)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+  }
+
+  private static final class And implements Node {
+    private final List<Node> operands;
+    And(final List<Node> operands) { this.operands = operands; }
+
+    public Condition bind(final Columns columns) {
+      final Condition[] conditions = bindAll(operands, columns);
+      return row -> {
+        for (final Condition condition : conditions) {
+          if (!condition.test(row)) {
+            return false;
+          }
+        }
+        return true;
+      };
+    }
+  }
+
+  private static final class Not implements Node {
+    private final Node operand;
+    Not(final Node operand) { this.operand = operand; }
+
+    public Condition bind(final Columns columns) {
+      final Condition condition = operand.bind(columns);
+      return row -> !condition.test(row);
+    }
+  }
+
+  private static Condition[] bindAll(final List<Node> nodes, final Columns columns) {
+    final Condition[] conditions = new Condition[nodes.size()];
+    for (int i = 0; i < conditions.length; i++) {
+      conditions[i] = nodes.get(i).bind(columns);
+    }
+    return conditions;
+  }
+
+  /** column = value, column != value */
+  private static final class Equal implements Node {
+    private final String column;
+    private final byte[] value;
+    private final boolean negate;
+
+    Equal(final String column, final String value, final boolean negate) {
+      this.column = column;
+      this.value = value.getBytes(StandardCharsets.UTF_8);
+      this.negate = negate;
+    }
+
+    public Condition bind(final Columns columns) {
+      final int id = columns.id(column);
+      return row -> row.locate(id) && (sameBytes(row.buffer, row.fieldStart[id], row.fieldEnd[id], value) != negate);
+    }
+  }
+
+  /** column in (values), column not in (values) */
+  private static final class In implements Node {
+    private final String column;
+    private final ByteSliceSet values;
+    private final boolean negate;
+
+    In(final String column, final Set<String> values, final boolean negate) {
+      this.column = column;
+      this.values = new ByteSliceSet(values);
+      this.negate = negate;
+    }
+
+    public Condition bind(final Columns columns) {
+      final int id = columns.id(column);
+      return row -> row.locate(id) && (values.contains(row.buffer, row.fieldStart[id], row.fieldEnd[id]) != negate);
+    }
+  }
+
+  /** column ~ regex, column !~ regex */
+  private static final class Regex implements Node {
+    private final String column;
+    private final Pattern pattern;
+    private final boolean negate;
+
+    Regex(final String column, final Pattern pattern, final boolean negate) {
+      this.column = column;
+      this.pattern = pattern;
+      this.negate = negate;
+    }
+
+    public Condition bind(final Columns columns) {
+      final int id = columns.id(column);
+      final FieldDecoder decoder = new FieldDecoder();
+      final Matcher matcher = pattern.matcher("");
+      return row -> row.locate(id) && (matcher.reset(decoder.decode(row.buffer, row.fieldStart[id], row.fieldEnd[id])).find() != negate);
+    }
+  }
+
+  /** column &lt; number, &lt;=, &gt;, &gt;= */
+  private static final class Compare implements Node {
+    private final String column;
+    private final String operator;
+    private final double value;
+
+    Compare(final String column, final String operator, final double value) {
+      this.column = column;
+      this.operator = operator;
+      this.value = value;
+    }
+
+    public Condition bind(final Columns columns) {
+      final int id = columns.id(column);
+      final double limit = value;
+      switch (operator) {
+        case "<":  return row -> row.locate(id) && (parseNumber(row.buffer, row.fieldStart[id], row.fieldEnd[id]) < limit);
+        case "<=": return row -> row.locate(id) && (parseNumber(row.buffer, row.fieldStart[id], row.fieldEnd[id]) <= limit);
+        case ">":  return row -> row.locate(id) && (parseNumber(row.buffer, row.fieldStart[id], row.fieldEnd[id]) > limit);
+        default:   return row -> row.locate(id) && (parseNumber(row.buffer, row.fieldStart[id], row.fieldEnd[id]) >= limit);
+      }
+    }
+  }
+
+  private static boolean sameBytes(final ByteBuffer buffer, final int start, final int end, final byte[] value) {
+    if (end - start != value.length) {
+      return false;
+    }
+    for (int i = 0; i < value.length; i++) {
+      if (buffer.get(start + i) != value[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return The decimal number in {@code buffer} between {@code start} and {@code end}, or NaN if this is not a number
+   */
+  static double parseNumber(final ByteBuffer buffer, final int start, final int end) {
+    int pos = start;
+    boolean negative = false;
+    if ((pos < end) && ((buffer.get(pos) == '-') || (buffer.get(pos) == '+'))) {
+      negative = buffer.get(pos) == '-';
+      pos++;
+    }
+    double number = 0;
+    double scale = 0;
+    int digits = 0;
+    for (; pos < end; pos++) {
+      final byte b = buffer.get(pos);
+      if ((b >= '0') && (b <= '9')) {
+        number = number * 10 + (b - '0');
+        scale *= 10;
+        digits++;
+      } else if ((b == '.') && (scale == 0)) {
+        scale = 1;
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (digits == 0) {
+      return Double.NaN;
+    }
+    if (scale > 1) {
+      number /= scale;
+    }
+    return negative ? -number : number;
+  }
+
+  /**
+   * Open-addressing hash set of UTF-8 strings, looked up directly with the bytes of a field
+   */
+  private static final class ByteSliceSet {
+    private final byte[][] table;
+    private final int mask;
+
+    ByteSliceSet(final Set<String> values) {
+      int size = 2;
+      while (size < 2 * values.size()) {
+        size *= 2;
+      }
+      table = new byte[size][];
+      mask = size - 1;
+      for (final String value : values) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int index = hash(ByteBuffer.wrap(bytes), 0, bytes.length) & mask;
+        while (table[index] != null) {
+          index = (index + 1) & mask;
+        }
+        table[index] = bytes;
+      }
+    }
+
+    boolean contains(final ByteBuffer buffer, final int start, final int end) {
+      int index = hash(buffer, start, end) & mask;
+      while (table[index] != null) {
+        if (sameBytes(buffer, start, end, table[index])) {
+          return true;
+        }
+        index = (index + 1) & mask;
+      }
+      return false;
+    }
+
+    private static int hash(final ByteBuffer buffer, final int start, final int end) {
+      int hash = 1;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + buffer.get(i);
+      }
+      return hash ^ (hash >>> 16);
+    }
+  }
+
+  /**
+   * Decodes UTF-8 fields into a reused character buffer, for regular expressions
+   */
+  private static final class FieldDecoder {
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer source;
+    private ByteBuffer view;
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    CharBuffer decode(final ByteBuffer buffer, final int start, final int end) {
+      if (buffer != source) {
+        source = buffer;
+        view = buffer.duplicate();
+      }
+      if (chars.capacity() < end - start) {
+        chars = CharBuffer.allocate(end - start);
+      }
+      view.clear();
+      view.limit(end).position(start);
+      chars.clear();
+      decoder.reset();
+      decoder.decode(view, chars, true);
+      decoder.flush(chars);
+      chars.flip();
+      return chars;
+    }
+  }
+
+  /**
+   * Recursive descent parser of filter expressions
+   */
+  private static final class Parser {
+    private static final String SYMBOLS = "()=,~!<>";
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "in");
+    private final String expression;
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Boolean> quoted = new ArrayList<>();
+    private final List<Integer> positions = new ArrayList<>();
+    private int current = 0;
+
+    Parser(final String expression) {
+      this.expression = expression;
+      tokenize();
+    }
+
+    Node parse() {
+      if (tokens.isEmpty()) {
+        throw error("empty expression", 0);
+      }
+      final Node node = parseOr();
+      if (current < tokens.size()) {
+        throw error("unexpected '" + tokens.get(current) + "'", positions.get(current));
+      }
+      return node;
+    }
+
+    private Node parseOr() {
+      final List<Node> operands = new ArrayList<>();
+      operands.add(parseAnd());
+      while (acceptKeyword("or")) {
+        operands.add(parseAnd());
+      }
+      return (operands.size() == 1) ? operands.get(0) : new Or(operands);
+    }
+
+    private Node parseAnd() {
+      final List<Node> operands = new ArrayList<>();
+      operands.add(parseUnary());
+      while (acceptKeyword("and")) {
+        operands.add(parseUnary());
+      }
+      return (operands.size() == 1) ? operands.get(0) : new And(operands);
+    }
+
+    private Node parseUnary() {
+      if (acceptKeyword("not")) {
+        return new Not(parseUnary());
+      }
+      if (accept("(")) {
+        final Node node = parseOr();
+        expect(")");
+        return node;
+      }
+      return parseCondition();
+    }
+
+    private Node parseCondition() {
+      final String column = value("column name");
+      if (acceptKeyword("in")) {
+        return new In(column, parseValues(), false);
+      }
+      if (acceptKeyword("not")) {
+        expectKeyword("in");
+        return new In(column, parseValues(), true);
+      }
+      final int position = position();
+      final String operator = next("operator");
+      switch (operator) {
+        case "=":
+        case "!=":
+          return new Equal(column, value("value"), operator.equals("!="));
+        case "~":
+        case "!~":
+          final int regexPosition = position();
+          final String regex = value("regular expression");
+          try {
+            return new Regex(column, Pattern.compile(regex), operator.equals("!~"));
+          } catch (PatternSyntaxException e) {
+            throw error("invalid regular expression '" + regex + "'", regexPosition);
+          }
+        case "<":
+        case "<=":
+        case ">":
+        case ">=":
+          final int numberPosition = position();
+          final String number = value("number");
+          final byte[] bytes = number.getBytes(StandardCharsets.UTF_8);
+          final double limit = parseNumber(ByteBuffer.wrap(bytes), 0, bytes.length);
+          if (Double.isNaN(limit)) {
+            throw error("'" + number + "' is not a number", numberPosition);
+          }
+          return new Compare(column, operator, limit);
+        default:
+          throw error("unknown operator '" + operator + "'", position);
+      }
+    }
+
+    private Set<String> parseValues() {
+      final Set<String> values = new LinkedHashSet<>();
+      expect("(");
+      do {
+        values.add(value("value"));
+      } while (accept(","));
+      expect(")");
+      return values;
+    }
+
+    private int position() {
+      return (current < tokens.size()) ? positions.get(current) : expression.length();
+    }
+
+    private String next(final String what) {
+      if (current >= tokens.size()) {
+        throw error("missing " + what, expression.length());
+      }
+      return tokens.get(current++);
+    }
+
+    private String value(final String what) {
+      if ((current < tokens.size()) && !quoted.get(current) && isSymbol(tokens.get(current))) {
+        throw error("expecting " + what + " instead of '" + tokens.get(current) + "'", positions.get(current));
+      }
+      return next(what);
+    }
+
+    private boolean accept(final String symbol) {
+      if ((current < tokens.size()) && !quoted.get(current) && tokens.get(current).equals(symbol)) {
+        current++;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean acceptKeyword(final String keyword) {
+      if ((current < tokens.size()) && !quoted.get(current) && tokens.get(current).toLowerCase(Locale.ROOT).equals(keyword)) {
+        current++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(final String symbol) {
+      if (!accept(symbol)) {
+        throw error("expecting '" + symbol + "'", position());
+      }
+    }
+
+    private void expectKeyword(final String keyword) {
+      if (!acceptKeyword(keyword)) {
+        throw error("expecting '" + keyword + "'", position());
+      }
+    }
+
+    private static boolean isSymbol(final String token) {
+      return SYMBOLS.indexOf(token.charAt(0)) != -1;
+    }
+
+    private void tokenize() {
+      int pos = 0;
+      final int length = expression.length();
+      while (pos < length) {
+        final char c = expression.charAt(pos);
+        if (Character.isWhitespace(c)) {
+          pos++;
+        } else if ((c == '\'') || (c == '"')) {
+          // quoted string: a backslash escapes the quote, other backslashes are kept for regular expressions
+          final int start = pos++;
+          final StringBuilder token = new StringBuilder();
+          while ((pos < length) && (expression.charAt(pos) != c)) {
+            if ((expression.charAt(pos) == '\\') && (pos + 1 < length) && (expression.charAt(pos + 1) == c)) {
+              pos++;
+            }
+            token.append(expression.charAt(pos++));
+          }
+          if (pos >= length) {
+            throw error("missing closing quote", start);
+          }
+          pos++;
+          add(token.toString(), true, start);
+        } else if ((c == '(') || (c == ')') || (c == ',') || (c == '=') || (c == '~')) {
+          add(String.valueOf(c), false, pos++);
+        } else if ((c == '!') || (c == '<') || (c == '>')) {
+          if ((pos + 1 < length) && ((expression.charAt(pos + 1) == '=') || ((c == '!') && (expression.charAt(pos + 1) == '~')))) {
+            add(expression.substring(pos, pos + 2), false, pos);
+            pos += 2;
+          } else if (c == '!') {
+            throw error("unexpected '!'", pos);
+          } else {
+            add(String.valueOf(c), false, pos++);
+          }
+        } else {
+          // bare word, possibly followed by parentheses without spaces such as foo() or get(int) when it is a value:
+          // after an operator, an opening parenthesis or a comma, and not a keyword such as not(...) or and(...)
+          final int start = pos;
+          while ((pos < length) && !Character.isWhitespace(expression.charAt(pos))
+                 && (SYMBOLS.indexOf(expression.charAt(pos)) == -1) && (expression.charAt(pos) != '\'') && (expression.charAt(pos) != '"')) {
+            pos++;
+          }
+          if ((pos < length) && (expression.charAt(pos) == '(') && isValuePosition() && !isKeyword(expression.substring(start, pos))) {
+            final int close = expression.indexOf(')', pos);
+            if ((close != -1) && expression.substring(pos, close).chars().noneMatch(Character::isWhitespace)) {
+              pos = close + 1;
+            }
+          }
+          add(expression.substring(start, pos), false, start);
+        }
+      }
+    }
+
+    /** @return {@code true} if the next token can be a value: it follows an operator, an opening parenthesis or a comma */
+    private boolean isValuePosition() {
+      final int last = tokens.size() - 1;
+      return (last >= 0) && !quoted.get(last) && isSymbol(tokens.get(last)) && !tokens.get(last).equals(")");
+    }
+
+    private static boolean isKeyword(final String word) {
+      return KEYWORDS.contains(word.toLowerCase(Locale.ROOT));
+    }
+
+    private void add(final String token, final boolean isQuoted, final int position) {
+      tokens.add(token);
+      quoted.add(isQuoted);
+      positions.add(position);
+    }
+
+    private RuntimeException error(final String message, final int position) {
+      return new RuntimeException("Invalid filter expression '" + expression + "': " + message + " at position " + position);
+    }
+  }
+}
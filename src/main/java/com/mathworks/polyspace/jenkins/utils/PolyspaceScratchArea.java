@@ -0,0 +1,272 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+
+package com.mathworks.polyspace.jenkins.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Scratch area of the controller for the files copied from the agents, for instance the e-mail attachments.
+ * <ul>
+ *   <li>Each build works in its own directory, see {@link #open}, deleted when the build closes it.</li>
+ *   <li>Files are stored once by content (SHA-256) in a store shared by all builds, and linked in the directories of the builds.
+ *       An attachment identical for many owners, or from one build to the next, takes the disk space of one copy.</li>
+ *   <li>The store is bounded by a quota: the least recently used files not used by a build are deleted to make room.</li>
+ * </ul>
+ */
+public final class PolyspaceScratchArea {
+
+  /** Default quota of the store, in bytes */
+  public static final long DEFAULT_QUOTA = 1024L * 1024 * 1024;
+
+  private static PolyspaceScratchArea instance;
+  private static long configuredQuota = DEFAULT_QUOTA;
+
+  /**
+   * @return The scratch area of the controller, in {@code java.io.tmpdir}
+   * @throws IOException Error while creating the scratch area
+   */
+  public static synchronized PolyspaceScratchArea get() throws IOException {
+    if (instance == null) {
+      instance = new PolyspaceScratchArea(Paths.get(System.getProperty("java.io.tmpdir"), "polyspace-scratch"), configuredQuota);
+    }
+    return instance;
+  }
+
+  /**
+   * Set the quota of the scratch area of the controller, created or not yet
+   * @param quota - Maximum size of the store, in bytes - 0 or less for no limit
+   */
+  public static synchronized void configure(final long quota) {
+    configuredQuota = quota;
+    if (instance != null) {
+      instance.setQuota(quota);
+    }
+  }
+
+  private final Path store;
+  private final Path builds;
+  private final Map<String, Integer> references = new HashMap<>();   // hash -> number of builds using the file
+  private long quota;
+  private long usage;
+
+  /**
+   * The directories of builds left by a previous run, for instance after a crash, are deleted.
+   * The files of the store are kept for later builds.
+   * @param root - Directory of the scratch area
+   * @param quota - Maximum size of the store, in bytes - 0 or less for no limit
+   * @throws IOException Error while creating or cleaning {@code root}
+   */
+  public PolyspaceScratchArea(final Path root, final long quota) throws IOException {
+    this.store = Files.createDirectories(root.resolve("store"));
+    this.builds = root.resolve("builds");
+    deleteRecursive(builds);
+    Files.createDirectories(builds);
+    this.quota = quota;
+    try (Stream<Path> files = Files.list(store)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        usage += Files.size(file);
+      }
+    }
+  }
+
+  /**
+   * @param quota - Maximum size of the store, in bytes - 0 or less for no limit. Applies to the next files added
+   */
+  public synchronized void setQuota(final long quota) { this.quota = quota; }
+
+  public synchronized long getQuota() { return quota; }
+
+  /** @return The size of the store, in bytes */
+  public synchronized long getUsage() { return usage; }
+
+  /**
+   * @param name - Name of the build, used as prefix of its directory
+   * @return A new directory for a build, deleted on {@link Scratch#close}
+   * @throws IOException Error while creating the directory
+   */
+  public Scratch open(final String name) throws IOException {
+    return new Scratch(Files.createTempDirectory(builds, name.replaceAll("[^A-Za-z0-9_.-]", "_") + "-"));
+  }
+
+  /**
+   * Directory of a build in the scratch area
+   */
+  public final class Scratch implements Closeable {
+    private final Path directory;
+    private final List<String> hashes = new ArrayList<>();
+    private int files = 0;
+    private boolean closed = false;
+
+    private Scratch(final Path directory) {
+      this.directory = directory;
+    }
+
+    public Path getDirectory() { return directory; }
+
+    /**
+     * @return A new empty directory in the directory of the build, to receive files
+     * @throws IOException Error while creating the directory
+     */
+    public synchronized Path newDirectory() throws IOException {
+      return Files.createDirectory(directory.resolve(String.valueOf(files++)));
+    }
+
+    /**
+     * Move {@code file} into the store, or delete it if the store already has the same content,
+     * and link the stored file in the directory of the build
+     * @param file - File to add, for instance a file copied in {@link #newDirectory}
+     * @param name - Name of the returned file
+     * @return The file in the directory of the build, named {@code name} - shared with the store, not to be modified
+     * @throws IOException Error while accessing the files, or the quota does not leave room for {@code file}
+     */
+    public Path add(final Path file, final String name) throws IOException {
+      final String hash = hash(file);
+      final Path stored = store.resolve(hash);
+      synchronized (PolyspaceScratchArea.this) {
+        if (Files.exists(stored)) {
+          Files.delete(file);
+          Files.setLastModifiedTime(stored, FileTime.fromMillis(System.currentTimeMillis()));
+        } else {
+          final long size = Files.size(file);
+          makeRoom(size);
+          Files.move(file, stored, StandardCopyOption.ATOMIC_MOVE);
+          usage += size;
+        }
+        references.merge(hash, 1, Integer::sum);
+      }
+      synchronized (this) {
+        hashes.add(hash);
+      }
+      final Path linked = newDirectory().resolve(name);
+      try {
+        Files.createLink(linked, stored);
+      } catch (UnsupportedOperationException | FileSystemException e) {
+        Files.copy(stored, linked);
+      }
+      return linked;
+    }
+
+    /**
+     * Delete the directory of the build, and release its files in the store
+     */
+    @Override
+    public void close() throws IOException {
+      final List<String> released;
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        released = new ArrayList<>(hashes);
+      }
+      synchronized (PolyspaceScratchArea.this) {
+        for (final String hash : released) {
+          references.computeIfPresent(hash, (key, count) -> (count > 1) ? count - 1 : null);
+        }
+      }
+      deleteRecursive(directory);
+    }
+  }
+
+  /**
+   * Delete the least recently used files of the store not used by a build, until {@code size} more bytes fit in the quota
+   */
+  private void makeRoom(final long size) throws IOException {
+    if ((quota <= 0) || (usage + size <= quota)) {
+      return;
+    }
+    final List<Path> unused = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(store)) {
+      for (final Path file : files) {
+        if (!references.containsKey(String.valueOf(file.getFileName()))) {
+          unused.add(file);
+        }
+      }
+    }
+    unused.sort(Comparator.comparing(file -> {
+      try {
+        return Files.getLastModifiedTime(file);
+      } catch (IOException e) {
+        return FileTime.fromMillis(0);
+      }
+    }));
+    for (final Path file : unused) {
+      if (usage + size <= quota) {
+        return;
+      }
+      final long fileSize = Files.size(file);
+      Files.delete(file);
+      usage -= fileSize;
+    }
+    if (usage + size > quota) {
+      throw new IOException("Polyspace scratch area is full: " + usage + " bytes used by running builds, "
+        + size + " bytes more do not fit in the quota of " + quota + " bytes");
+    }
+  }
+
+  private static String hash(final Path file) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+    final byte[] buffer = new byte[65536];
+    try (InputStream in = Files.newInputStream(file)) {
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void deleteRecursive(final Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(path)) {
+      for (final Path file : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
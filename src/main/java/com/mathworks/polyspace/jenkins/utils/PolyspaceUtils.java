@@ -21,13 +21,30 @@
 
 package com.mathworks.polyspace.jenkins.utils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.stream.Stream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class PolyspaceUtils {
 
@@ -42,6 +59,9 @@ public class PolyspaceUtils {
       }
       Path tempFile = Paths.get(tempDir.toString(), filename.toString());
       Files.copy(path, tempFile);
+      // not in a PolyspaceScratchArea: deleted when the JVM exits, the file first
+      tempDir.toFile().deleteOnExit();
+      tempFile.toFile().deleteOnExit();
       return tempFile;
     } else {
       throw new RuntimeException("Should not be a directory: '" + path + "'");
@@ -58,12 +78,190 @@ public class PolyspaceUtils {
     Files.write(path, content, StandardCharsets.UTF_8);
   }
 
+  public static BufferedReader newReader(Path path) throws IOException
+  {
+    return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param path - Path to the file to write
+   * @param append - {@code true} to append to an existing file, {@code false} to overwrite it
+   * @return A buffered output stream on {@code path}, created if it does not exist
+   * @throws IOException Error while opening {@code path}
+   */
+  public static OutputStream newOutputStream(Path path, boolean append) throws IOException
+  {
+    if (append) {
+      return new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+    return new BufferedOutputStream(Files.newOutputStream(path));
+  }
+
+  /**
+   * Compress {@code source} in a zip with one entry, streaming: the file is never held in memory
+   * @param source - Path to the file to compress
+   * @param entryName - Name of the file in the zip
+   * @param zip - Path to the zip to write
+   * @return The size of the zip, in bytes
+   * @throws IOException Error while reading {@code source} or writing {@code zip}
+   */
+  public static long zipFile(Path source, String entryName, Path zip) throws IOException
+  {
+    try (ZipOutputStream out = new ZipOutputStream(newOutputStream(zip, false))) {
+      out.setLevel(Deflater.BEST_SPEED);   // reports are text: most of the gain comes at the fastest level
+      out.putNextEntry(new ZipEntry(entryName));
+      Files.copy(source, out);
+      out.closeEntry();
+    }
+    return Files.size(zip);
+  }
+
+  /**
+   * @param path - Path to the file to read
+   * @param offset - Position of the first byte to read
+   * @param length - Number of bytes to read
+   * @return A stream on the {@code length} bytes of {@code path} from {@code offset}
+   * @throws IOException Error while opening {@code path}
+   */
+  public static InputStream newRangeInputStream(Path path, long offset, long length) throws IOException
+  {
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    channel.position(offset);
+    return new BufferedInputStream(new InputStream() {
+      private long remaining = length;
+
+      @Override
+      public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xFF);
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+          return -1;
+        }
+        final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+        if (read > 0) {
+          remaining -= read;
+        }
+        return read;
+      }
+
+      @Override
+      public void close() throws IOException {
+        channel.close();
+      }
+    });
+  }
+
   public static long getFileLineCount(Path path) throws IOException
   {
-      long nb;
-      try (Stream<String> lines = Files.lines(path)) {
-        nb = lines.count();
+    return getFileLineCount(path, Long.MAX_VALUE);
+  }
+
+  /**
+   * Count the lines of {@code path} as {@link Files#lines} does: lines end with "\n", "\r" or "\r\n",
+   * and the last line counts even without line terminator.
+   * The bytes are scanned for line terminators without decoding them, and the count is cached until the file changes.
+   * @param path - Path to the file
+   * @param max - Stop counting once the count is above {@code max}
+   * @return The number of lines, or a number above {@code max} if there are more than {@code max} lines
+   * @throws IOException Error while reading {@code path}
+   */
+  public static long getFileLineCount(Path path, long max) throws IOException
+  {
+    final Path key = path.toAbsolutePath().normalize();
+    final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    final LineCount cached = lineCounts.get(key);
+    if ((cached != null) && cached.isFor(attributes)) {
+      return cached.lines;
+    }
+
+    long lines = 0;
+    boolean completeLine = true;      // the last byte read ends a line
+    boolean afterCR = false;          // the last byte read is '\r'
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(LINE_COUNT_BUFFER_SIZE);
+      final byte[] bytes = buffer.array();
+      int read;
+      while ((lines <= max) && ((read = channel.read(buffer.clear())) != -1)) {
+        checkInterrupted();
+        for (int i = 0; i < read; i++) {
+          final byte b = bytes[i];
+          if (b == '\n') {
+            if (!afterCR) {
+              lines++;
+            }
+            afterCR = false;
+            completeLine = true;
+          } else if (b == '\r') {
+            lines++;
+            afterCR = true;
+            completeLine = true;
+          } else {
+            afterCR = false;
+            completeLine = false;
+          }
+        }
       }
-      return nb;
+    }
+    if (lines > max) {
+      return lines;
+    }
+    if (!completeLine) {
+      lines++;
+    }
+    lineCounts.put(key, new LineCount(attributes, lines));
+    return lines;
+  }
+
+  private static final int LINE_COUNT_BUFFER_SIZE = 256 * 1024;
+
+  /**
+   * Called while scanning reports, so that a long scan stops as soon as the build is aborted
+   * @throws InterruptedIOException The current thread has been interrupted
+   */
+  public static void checkInterrupted() throws InterruptedIOException
+  {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while reading a report");
+    }
+  }
+
+  /** Maximum number of files in {@link #lineCounts} */
+  private static final int LINE_COUNT_CACHE_SIZE = 64;
+
+  /**
+   * Line counts of the last files counted, with the attributes of the files when counted.
+   * Bounded, least recently used first out: the paths of the attachments change with each build.
+   */
+  private static final Map<Path, LineCount> lineCounts = Collections.synchronizedMap(new LinkedHashMap<Path, LineCount>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Path, LineCount> eldest) {
+      return size() > LINE_COUNT_CACHE_SIZE;
+    }
+  });
+
+  private static class LineCount {
+    private final long size;
+    private final FileTime lastModifiedTime;
+    private final Object fileKey;
+    private final long lines;
+
+    LineCount(BasicFileAttributes attributes, long lines) {
+      this.size = attributes.size();
+      this.lastModifiedTime = attributes.lastModifiedTime();
+      this.fileKey = attributes.fileKey();
+      this.lines = lines;
+    }
+
+    boolean isFor(BasicFileAttributes attributes) {
+      return (size == attributes.size())
+          && lastModifiedTime.equals(attributes.lastModifiedTime())
+          && Objects.equals(fileKey, attributes.fileKey());
+    }
   }
 }
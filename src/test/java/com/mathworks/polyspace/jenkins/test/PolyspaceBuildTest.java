@@ -147,6 +147,8 @@ class PolyspaceBuildTest {
     "POLYSPACE_ACCESS_HOST",
     "POLYSPACE_ACCESS_PORT",
     "POLYSPACE_ACCESS_URL",
+
+    "ps_helper_socket",
   };
 
   private String getCommandAllEnvVariables() {
@@ -207,6 +209,7 @@ class PolyspaceBuildTest {
 
     // Assert that the console log contains the output we expect
     checkBinUnset(build);
+    rule.assertLogContains("ps_helper-1.sock", build);
   }
 
   // Check "PATH" contains the selected bin path, that is "path_to_bin2"
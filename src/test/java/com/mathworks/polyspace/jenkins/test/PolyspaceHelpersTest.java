@@ -1,6 +1,7 @@
 package com.mathworks.polyspace.jenkins.test;
 
 import com.mathworks.polyspace.jenkins.PolyspaceHelpers;
+import com.mathworks.polyspace.jenkins.PolyspaceHelpersServer;
 import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,13 +10,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -34,12 +50,22 @@ public class PolyspaceHelpersTest {
     private final PrintStream originalOut = System.out;
     private final PrintStream originalErr = System.err;
 
-    private static final String USAGE_REPORT_FILTER = "Usage: ps_helper -report-filter <original_report> <filtered_report> [<owner>] [<title> <value>]+" + System.lineSeparator();
+    private static final String USAGE_REPORT_FILTER = "Usage: ps_helper -report-filter <original_report> <filtered_report> [<owner>] ([<title> <value>]+ | -where <expression>)" + System.lineSeparator();
+    private static final String USAGE_REPORT_FILTER_PARALLEL = "Usage: ps_helper -report-filter-parallel <workers> <original_report> <filtered_report> [<owner>] ([<title> <value>]+ | -where <expression>)" + System.lineSeparator();
+    private static final String USAGE_REPORT_ROUTE = "Usage: ps_helper -report-route <original_report> <filtered_report> <rules_file>" + System.lineSeparator();
+    private static final String USAGE_REPORT_DIFF = "Usage: ps_helper -report-diff <report> <baseline_report> <diff_report> <key_title>[,<key_title>...]" + System.lineSeparator();
+    private static final String USAGE_REPORT_AGGREGATE = "Usage: ps_helper -report-aggregate <report> <title>[,<title>...] [-json]" + System.lineSeparator();
+    private static final String USAGE_BATCH = "Usage: ps_helper -batch <commands_file|->" + System.lineSeparator();
+    private static final String USAGE_SERVER = "Usage: ps_helper -server <socket> [<idle_timeout_seconds>]" + System.lineSeparator()
+                                             + "Usage: ps_helper -client <socket> <command> [<arguments>]..." + System.lineSeparator();
+    private static final String USAGE_REPORT_INDEX = "Usage: ps_helper -report-index <report>" + System.lineSeparator();
     private static final String USAGE_REPORT_STATUS = "Usage: ps_helper -report-status <report> <nb_to_fail>" + System.lineSeparator();
     private static final String USAGE_REPORT_COUNT_FINDINGS = "Usage: ps_helper -report-count-findings <report>" + System.lineSeparator();
     private static final String USAGE_PRINT_RUNID = "Usage: ps_helper -print-runid <access upload output>" + System.lineSeparator();
     private static final String USAGE_PRINT_PROJECTID = "Usage: ps_helper -print-projectid <access upload output>" + System.lineSeparator();
     private static final String USAGE_PRINT_PROJECTURL = "Usage: ps_helper -print-projecturl <access upload output> <access_url>" + System.lineSeparator();
+    private static final String USAGE_PRINT_ACCESS_RESULT = "Usage: ps_helper -print-access-result <access upload output> [<access_url>] [-json]" + System.lineSeparator();
+    private static final String USAGE_ACCESS_UPLOAD_TEE = "Usage: ps_helper -access-upload-tee <result_file> [<access_url>] [-json] < <access upload output>" + System.lineSeparator();
 
     @BeforeEach
     public void setUp() {
@@ -69,6 +95,13 @@ public class PolyspaceHelpersTest {
         verify(mockUtils).reportFilter(eq(Paths.get("original.txt")), eq(Paths.get("filtered.txt")), eq(""), eq(new String[]{"Module", "moduleA"}));
     }
 
+    @Test
+    void testReportFilterWhere() throws IOException {
+        String[] args = {"-report-filter", "original.txt", "filtered.txt", "owner1", "-where", "Module = moduleA or Module = moduleB"};
+        polyspaceHelpersInstance.reportFilter(args);
+        verify(mockUtils).reportFilter(eq(Paths.get("original.txt")), eq(Paths.get("filtered.txt")), eq("owner1"), eq(new String[]{"-where", "Module = moduleA or Module = moduleB"}));
+    }
+
     @Test
     void testReportFilterUnderscore() throws IOException {
         String[] args = {"report_filter", "original.txt", "filtered.txt", "owner1", "Module", "moduleA"};
@@ -76,6 +109,67 @@ public class PolyspaceHelpersTest {
         verify(mockUtils).reportFilter(eq(Paths.get("original.txt")), eq(Paths.get("filtered.txt")), eq("owner1"), eq(new String[]{"Module", "moduleA"}));
     }
 
+    @Test
+    void testReportFilterParallel() throws IOException {
+        String[] args = {"-report-filter-parallel", "4", "original.txt", "filtered.txt", "owner1", "Module", "moduleA"};
+        polyspaceHelpersInstance.reportFilterParallel(args);
+        verify(mockUtils).reportFilterParallel(eq(Paths.get("original.txt")), eq(Paths.get("filtered.txt")), eq("owner1"), eq(new String[]{"Module", "moduleA"}), eq(4));
+    }
+
+    @Test
+    void testReportFilterParallelNoOwner() throws IOException {
+        String[] args = {"-report-filter-parallel", "0", "original.txt", "filtered.txt", "Module", "moduleA"};
+        polyspaceHelpersInstance.reportFilterParallel(args);
+        verify(mockUtils).reportFilterParallel(eq(Paths.get("original.txt")), eq(Paths.get("filtered.txt")), eq(""), eq(new String[]{"Module", "moduleA"}), eq(0));
+    }
+
+    @Test
+    void testReportDiff() throws IOException {
+        String[] args = {"-report-diff", "report.tsv", "baseline.tsv", "diff.tsv", "Family,Check,File"};
+        when(mockUtils.reportDiff(any(Path.class), any(Path.class), any(Path.class), any(String[].class))).thenReturn(new long[] { 3, 2 });
+        polyspaceHelpersInstance.reportDiff(args);
+        verify(mockUtils).reportDiff(eq(Paths.get("report.tsv")), eq(Paths.get("baseline.tsv")), eq(Paths.get("diff.tsv")), eq(new String[]{"Family", "Check", "File"}));
+        assertEquals("3 new, 2 fixed" + System.lineSeparator(), outContent.toString());
+    }
+
+    @Test
+    void testReportDiffMissingArgs() throws IOException {
+        String[] args = {"-report-diff", "report.tsv", "baseline.tsv", "diff.tsv"};
+        PolyspaceHelpers.main(args);
+        assertEquals(USAGE_REPORT_DIFF, outContent.toString());
+    }
+
+    @Test
+    void testReportAggregate() throws IOException {
+        String[] args = {"-report-aggregate", "report.tsv", "Family,Check", "-json"};
+        when(mockUtils.getReportAggregate(any(Path.class), any(String[].class))).thenReturn(List.of());
+        when(mockUtils.formatReportAggregate(any(String[].class), any(), eq(true))).thenReturn("[]");
+        polyspaceHelpersInstance.reportAggregate(args);
+        verify(mockUtils).getReportAggregate(eq(Paths.get("report.tsv")), eq(new String[]{"Family", "Check"}));
+        assertEquals("[]" + System.lineSeparator(), outContent.toString());
+    }
+
+    @Test
+    void testReportAggregateInvalidArgs() throws IOException {
+        String[] args = {"-report-aggregate", "report.tsv", "Family", "-xml"};
+        PolyspaceHelpers.main(args);
+        assertEquals(USAGE_REPORT_AGGREGATE, outContent.toString());
+    }
+
+    @Test
+    void testReportIndex() throws IOException {
+        String[] args = {"-report-index", "report.tsv"};
+        polyspaceHelpersInstance.reportIndex(args);
+        verify(mockUtils).reportIndex(eq(Paths.get("report.tsv")));
+    }
+
+    @Test
+    void testReportRoute() throws IOException {
+        String[] args = {"-report-route", "original.txt", "filtered.txt", "rules.txt"};
+        polyspaceHelpersInstance.reportRoute(args);
+        verify(mockUtils).reportRoute(eq(Paths.get("original.txt")), eq(Paths.get("filtered.txt")), eq(Paths.get("rules.txt")));
+    }
+
     @Test
     void testReportStatus() throws IOException {
         String[] args = {"-report-status", "report.txt", "10"};
@@ -166,6 +260,32 @@ public class PolyspaceHelpersTest {
         assertEquals("http://newexample.com/project/456" + System.lineSeparator(), outContent.toString());
     }
 
+    @Test
+    void testPrintAccessResult() throws IOException {
+        when(mockUtils.getAccessResult(any(Path.class), anyString(), anyBoolean())).thenReturn("POLYSPACE_RUN_ID='123'");
+        polyspaceHelpersInstance.printAccessResult(new String[] {"-print-access-result", "upload_output.txt"});
+        verify(mockUtils).getAccessResult(eq(Paths.get("upload_output.txt")), eq(""), eq(false));
+        polyspaceHelpersInstance.printAccessResult(new String[] {"-print-access-result", "upload_output.txt", "http://example.com", "-json"});
+        verify(mockUtils).getAccessResult(eq(Paths.get("upload_output.txt")), eq("http://example.com"), eq(true));
+        polyspaceHelpersInstance.printAccessResult(new String[] {"print_access_result", "upload_output.txt", "-json"});
+        verify(mockUtils).getAccessResult(eq(Paths.get("upload_output.txt")), eq(""), eq(true));
+        assertEquals(("POLYSPACE_RUN_ID='123'" + System.lineSeparator()).repeat(3), outContent.toString());
+    }
+
+    @Test
+    void testPrintAccessResultMissingArgs() throws IOException {
+        String[] args = {"-print-access-result"};
+        polyspaceHelpersInstance.printAccessResult(args);
+        assertEquals(USAGE_PRINT_ACCESS_RESULT, outContent.toString());
+    }
+
+    @Test
+    void testAccessUploadTeeMissingArgs() throws IOException {
+        String[] args = {"-access-upload-tee"};
+        polyspaceHelpersInstance.accessUploadTee(args);
+        assertEquals(USAGE_ACCESS_UPLOAD_TEE, outContent.toString());
+    }
+
     @Test
     void testReportFilterMissingArgs() throws IOException {
         String[] args = {"-report-filter", "original.txt"};
@@ -180,6 +300,27 @@ public class PolyspaceHelpersTest {
         assertEquals(USAGE_REPORT_FILTER, outContent.toString());
     }
 
+    @Test
+    void testReportFilterParallelMissingArgs() throws IOException {
+        String[] args = {"-report-filter-parallel", "2", "original.txt"};
+        PolyspaceHelpers.main(args);
+        assertEquals(USAGE_REPORT_FILTER_PARALLEL, outContent.toString());
+    }
+
+    @Test
+    void testReportRouteMissingArgs() throws IOException {
+        String[] args = {"-report-route", "original.txt", "filtered.txt"};
+        PolyspaceHelpers.main(args);
+        assertEquals(USAGE_REPORT_ROUTE, outContent.toString());
+    }
+
+    @Test
+    void testReportIndexMissingArgs() throws IOException {
+        String[] args = {"-report-index"};
+        PolyspaceHelpers.main(args);
+        assertEquals(USAGE_REPORT_INDEX, outContent.toString());
+    }
+
     @Test
     void testReportStatusMissingArgs() throws IOException {
         String[] args = {"-report-status", "report.txt"};
@@ -256,11 +397,20 @@ public class PolyspaceHelpersTest {
         PolyspaceHelpers.main(args); // Directly call the static main method
 
         String expectedOutput = USAGE_REPORT_FILTER +
+                                USAGE_REPORT_FILTER_PARALLEL +
+                                USAGE_REPORT_ROUTE +
+                                USAGE_REPORT_DIFF +
+                                USAGE_REPORT_AGGREGATE +
+                                USAGE_REPORT_INDEX +
                                 USAGE_REPORT_STATUS +
                                 USAGE_REPORT_COUNT_FINDINGS +
                                 USAGE_PRINT_RUNID +
                                 USAGE_PRINT_PROJECTID +
-                                USAGE_PRINT_PROJECTURL;
+                                USAGE_PRINT_PROJECTURL +
+                                USAGE_PRINT_ACCESS_RESULT +
+                                USAGE_ACCESS_UPLOAD_TEE +
+                                USAGE_BATCH +
+                                USAGE_SERVER;
         assertEquals(expectedOutput, outContent.toString());
     }
 
@@ -270,11 +420,152 @@ public class PolyspaceHelpersTest {
         PolyspaceHelpers.main(args); // Directly call the static main method
 
         String expectedOutput = USAGE_REPORT_FILTER +
+                                USAGE_REPORT_FILTER_PARALLEL +
+                                USAGE_REPORT_ROUTE +
+                                USAGE_REPORT_DIFF +
+                                USAGE_REPORT_AGGREGATE +
+                                USAGE_REPORT_INDEX +
                                 USAGE_REPORT_STATUS +
                                 USAGE_REPORT_COUNT_FINDINGS +
                                 USAGE_PRINT_RUNID +
                                 USAGE_PRINT_PROJECTID +
-                                USAGE_PRINT_PROJECTURL;
+                                USAGE_PRINT_PROJECTURL +
+                                USAGE_PRINT_ACCESS_RESULT +
+                                USAGE_ACCESS_UPLOAD_TEE +
+                                USAGE_BATCH +
+                                USAGE_SERVER;
         assertEquals(expectedOutput, outContent.toString());
     }
+
+    @Test
+    void testRunBatch() throws IOException {
+        String commands = "# notification stage" + System.lineSeparator()
+                        + "-report-filter original.txt 'filtered report.txt' owner1 Group \"Static memory\"" + System.lineSeparator()
+                        + System.lineSeparator()
+                        + "  -report-count-findings report.txt" + System.lineSeparator();
+        when(mockUtils.getCountFindings(any(Path.class))).thenReturn(5L);
+        int failures = polyspaceHelpersInstance.runBatch(new BufferedReader(new StringReader(commands)));
+        assertEquals(0, failures);
+        verify(mockUtils).reportFilter(eq(Paths.get("original.txt")), eq(Paths.get("filtered report.txt")), eq("owner1"), eq(new String[]{"Group", "Static memory"}));
+        verify(mockUtils).getCountFindings(eq(Paths.get("report.txt")));
+        assertEquals("5" + System.lineSeparator(), outContent.toString());
+    }
+
+    @Test
+    void testRunBatchErrors() throws IOException {
+        String commands = "-report-count-findings missing.txt" + System.lineSeparator()
+                        + "-unknown-command" + System.lineSeparator()
+                        + "-report-count-findings report.txt" + System.lineSeparator();
+        when(mockUtils.getCountFindings(eq(Paths.get("missing.txt")))).thenThrow(new RuntimeException("Report 'missing.txt' does not exist"));
+        when(mockUtils.getCountFindings(eq(Paths.get("report.txt")))).thenReturn(7L);
+        int failures = polyspaceHelpersInstance.runBatch(new BufferedReader(new StringReader(commands)));
+        assertEquals(2, failures);
+        assertEquals("7" + System.lineSeparator(), outContent.toString());
+        assertEquals("ps_helper: line 1: -report-count-findings missing.txt" + System.lineSeparator()
+                   + "ps_helper: Report 'missing.txt' does not exist" + System.lineSeparator()
+                   + "ps_helper: line 2: -unknown-command" + System.lineSeparator()
+                   + "ps_helper: Unknown command '-unknown-command'" + System.lineSeparator(), errContent.toString());
+    }
+
+    @Test
+    void testBatchMissingArgs() throws IOException {
+        String[] args = {"-batch"};
+        PolyspaceHelpers.main(args);
+        assertEquals(USAGE_BATCH, outContent.toString());
+    }
+
+    @Test
+    void testSplitCommandLine() {
+        assertArrayEquals(new String[]{"-report-filter", "a b.tsv", "c", "it's", "x\"y", "", "d\\e"},
+                          PolyspaceHelpers.splitCommandLine("-report-filter 'a b.tsv'  c \"it's\" \"x\\\"y\" '' \"d\\\\e\""));
+        // backslashes of Windows paths are kept
+        assertArrayEquals(new String[]{"-report-count-findings", "C:\\work\\report.tsv", "C:\\Program Files\\report.tsv", "C:\\out\\"},
+                          PolyspaceHelpers.splitCommandLine("-report-count-findings C:\\work\\report.tsv \"C:\\Program Files\\report.tsv\" 'C:\\out\\'"));
+    }
+
+    @Test
+    void testServer() throws Exception {
+        Path socket = Files.createTempDirectory("polyspace-").resolve("ps_helper.sock");
+        when(mockUtils.getCountFindings(any(Path.class))).thenReturn(12L);
+        Thread server = new Thread(() -> {
+            try {
+                PolyspaceHelpersServer.serve(socket, 60000, mockUtils);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        server.start();
+        while (!Files.exists(socket)) {
+            Thread.sleep(10);
+        }
+
+        // Commands run in the server, with their output and status sent to the client
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(0, PolyspaceHelpersServer.call(socket, new String[]{"-report-count-findings", "report.txt"}, new PrintStream(out), new PrintStream(err)));
+        assertEquals(0, PolyspaceHelpersServer.call(socket, new String[]{"-report-route", "original.txt"}, new PrintStream(out), new PrintStream(err)));
+        assertEquals(1, PolyspaceHelpersServer.call(socket, new String[]{"-report-status", "report.txt", "many"}, new PrintStream(out), new PrintStream(err)));
+        // relative paths are relative to the working directory of the client, not of the server
+        verify(mockUtils).getCountFindings(eq(Paths.get("report.txt").toAbsolutePath()));
+        assertEquals("12" + System.lineSeparator() + USAGE_REPORT_ROUTE, out.toString());
+        assertEquals("For input string: \"many\"" + System.lineSeparator(), err.toString());
+        // only the owner can connect to the socket
+        if (socket.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+        }
+        // arguments longer than 64 KB
+        final String longArgument = "x".repeat(100000);
+        assertEquals(0, PolyspaceHelpersServer.call(socket, new String[]{"-report-count-findings", longArgument}, new PrintStream(out), new PrintStream(err)));
+        verify(mockUtils).getCountFindings(eq(Paths.get(longArgument).toAbsolutePath()));
+
+        // Commands can be sent as text, with their working directory
+        final Path workingDirectory = socket.getParent().resolve("sub");
+        try (SocketChannel connection = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            connection.write(ByteBuffer.wrap(("-cwd '" + workingDirectory + "' -report-count-findings 'other report.txt'\n").getBytes(StandardCharsets.UTF_8)));
+            assertEquals("12" + System.lineSeparator(), new String(Channels.newInputStream(connection).readAllBytes(), StandardCharsets.UTF_8));
+        }
+        verify(mockUtils).getCountFindings(eq(workingDirectory.resolve("other report.txt")));
+
+        // without working directory, relative paths are rejected
+        try (SocketChannel connection = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            connection.write(ByteBuffer.wrap("-report-count-findings 'other report.txt'\n".getBytes(StandardCharsets.UTF_8)));
+            assertEquals("Relative path 'other report.txt' while the working directory is unknown: use an absolute path" + System.lineSeparator(),
+                         new String(Channels.newInputStream(connection).readAllBytes(), StandardCharsets.UTF_8));
+        }
+        verify(mockUtils, times(3)).getCountFindings(any(Path.class));
+
+        // The server stops when its socket is deleted
+        Files.delete(socket);
+        server.join(10000);
+        assertFalse(server.isAlive());
+        Files.delete(socket.getParent());
+    }
+
+    @Test
+    void testServerSocketPathTooLong() throws Exception {
+        Path directory = Files.createTempDirectory("polyspace-");
+        Path socket = directory.resolve("x".repeat(120) + ".sock");
+        assertFalse(PolyspaceHelpersServer.isSocketPathValid(socket.toString()));
+        assertTrue(PolyspaceHelpersServer.isSocketPathValid(directory.resolve("ps_helper.sock").toString()));
+        IOException e = assertThrows(IOException.class, () -> PolyspaceHelpersServer.serve(socket, 100, mockUtils));
+        assertTrue(e.getMessage().contains("too long"));
+        Files.delete(directory);
+    }
+
+    @Test
+    void testServerIdleTimeout() throws Exception {
+        Path socket = Files.createTempDirectory("polyspace-").resolve("ps_helper.sock");
+        PolyspaceHelpersServer.serve(socket, 100, mockUtils);
+        assertFalse(Files.exists(socket));
+        Files.delete(socket.getParent());
+    }
+
+    @Test
+    void testClientWithoutServer() throws Exception {
+        // Without server, the command runs in the client
+        Path socket = Paths.get("missing.sock");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, PolyspaceHelpersServer.call(socket, new String[]{"-report-index"}, new PrintStream(out), System.err));
+        assertEquals(USAGE_REPORT_INDEX, out.toString());
+    }
 }
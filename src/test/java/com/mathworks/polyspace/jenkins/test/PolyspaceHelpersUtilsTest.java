@@ -23,9 +23,22 @@ package com.mathworks.polyspace.jenkins.test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import com.mathworks.polyspace.jenkins.utils.PolyspaceHelpersUtils;
 
@@ -46,6 +59,7 @@ class PolyspaceHelpersUtilsTest {
   private static Path allStaticMemory = Paths.get(cwd, "src", "test", "data", "allStaticMemory.tsv");
   private static Path allFoo = Paths.get(cwd, "src", "test", "data", "allFoo.tsv");
   private static Path allFooOwnersList = Paths.get(cwd, "src", "test", "data", "allFoo.tsv.owners.list");
+  private static Path routeRules = Paths.get(cwd, "src", "test", "data", "routeRules.txt");
 
   @Test
   void testOwnerInFile() throws Exception
@@ -103,6 +117,38 @@ class PolyspaceHelpersUtilsTest {
     );
   }
 
+  @Test
+  void testZipReportOwners() throws IOException
+  {
+    final Path root = Files.createTempDirectory("polyspace-");
+    Files.createDirectories(root.resolve("Notification"));
+    Files.writeString(root.resolve("Notification/report.tsv.owners.list"), "userA\nuserB\n");
+    Files.writeString(root.resolve("Notification/report_userA.tsv"), "A");
+    Files.writeString(root.resolve("Notification/report_userB.tsv"), "B");
+    Files.writeString(root.resolve("Notification/subject_userA.txt"), "Subject A");   // no subject for userB
+    Files.writeString(root.resolve("secret_userA.txt"), "outside");
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(4, polyspaceHelpersUtils.zipReportOwners(root, Paths.get("Notification/report.tsv"),
+      Arrays.asList(Paths.get("Notification/subject.txt"), null, Paths.get("../secret.txt")), out));
+
+    final Map<String, String> entries = new TreeMap<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+    assertEquals("{Notification/report.tsv.owners.list=userA\nuserB\n, Notification/report_userA.tsv=A, "
+      + "Notification/report_userB.tsv=B, Notification/subject_userA.txt=Subject A}", entries.toString());
+
+    // without owner list, an empty zip
+    out.reset();
+    assertEquals(0, polyspaceHelpersUtils.zipReportOwners(root, Paths.get("missing.tsv"), List.of(), out));
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      assertNull(zip.getNextEntry());
+    }
+  }
+
   @Test
   void testReportGetColId()
   {
@@ -111,6 +157,7 @@ class PolyspaceHelpersUtilsTest {
     assertEquals(0, polyspaceHelpersUtils.reportGetColId(titleLine, "FindingID"));
     assertEquals(5, polyspaceHelpersUtils.reportGetColId(titleLine, "Check"));
     assertEquals(11, polyspaceHelpersUtils.reportGetColId(titleLine, "URL"));
+    assertEquals(1, polyspaceHelpersUtils.reportGetColId("\tEmptyFirstTitle", "EmptyFirstTitle"));
 
     Exception exception = assertThrows(RuntimeException.class, () ->
       polyspaceHelpersUtils.reportGetColId(titleLine, "BLURP"));
@@ -135,7 +182,8 @@ class PolyspaceHelpersUtilsTest {
     final Path filteredReport = Paths.get(cwd, "src", "test", "data", "computedAllMisraC2012.tsv");
     Files.deleteIfExists(filteredReport);
 
-    polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Family", "MISRA C:2012" });
+    final long filteredLines = polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Family", "MISRA C:2012" });
+    assertEquals(polyspaceHelpersUtils.getCountFindings(allMisraC2012), filteredLines);
 
     final String expectedContent = PolyspaceUtils.getFileContent(allMisraC2012);
     final String computedContent = PolyspaceUtils.getFileContent(filteredReport);
@@ -182,11 +230,469 @@ class PolyspaceHelpersUtilsTest {
     String allFooOwnersListContent = PolyspaceUtils.getFileContent(allFooOwnersList);
     String computedOwnersListContent = PolyspaceUtils.getFileContent(computedOwnersList);
     assertEquals(allFooOwnersListContent, computedOwnersListContent);
+    assertReportOwnerMeta(filteredReport, owner, computedFile);
+
+    // lines appended to the report of the owner: its metadata are the ones of the whole file
+    polyspaceHelpersUtils.reportFilter(results, filteredReport, owner, new String[] { "Family", "Defect" });
+    assertReportOwnerMeta(filteredReport, owner, computedFile);
+    assertEquals(1, polyspaceHelpersUtils.readReportOwnerMeta(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport)).size());
 
     Files.deleteIfExists(computedOwnersList);
+    Files.deleteIfExists(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport));
     Files.deleteIfExists(computedFile);
   }
 
+  private void assertReportOwnerMeta(final Path filteredReport, final String owner, final Path filteredReport_owner) throws IOException
+  {
+    final PolyspaceHelpersUtils.ReportOwnerMeta meta =
+      polyspaceHelpersUtils.readReportOwnerMeta(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport)).get(owner);
+    assertNotNull(meta);
+    assertEquals(polyspaceHelpersUtils.getCountFindings(filteredReport_owner), meta.getFindings());
+    assertEquals(Files.size(filteredReport_owner), meta.getBytes());
+    final CRC32 crc = new CRC32();
+    crc.update(Files.readAllBytes(filteredReport_owner));
+    assertEquals(crc.getValue(), meta.getChecksum());
+  }
+
+  @Test
+  void testReportFilterAppend() throws Exception
+  {
+    // Test two filters concatenated into the same filtered report: the title line is written once
+    final Path filteredReport = Paths.get(cwd, "src", "test", "data", "computedAppend.tsv");
+    Files.deleteIfExists(filteredReport);
+
+    polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Function", "foo()" });
+    polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Group", "Static memory" });
+
+    final String allStaticMemoryContent = PolyspaceUtils.getFileContent(allStaticMemory);
+    final String expectedContent = PolyspaceUtils.getFileContent(allFoo)
+      + allStaticMemoryContent.substring(allStaticMemoryContent.indexOf(System.lineSeparator()) + System.lineSeparator().length());
+    final String computedContent = PolyspaceUtils.getFileContent(filteredReport);
+
+    assertEquals(expectedContent, computedContent);
+
+    Files.deleteIfExists(filteredReport);
+  }
+
+  @Test
+  void testReportFilterColumns() throws Exception
+  {
+    // Test criteria given in any column order, and criteria on an empty column
+    final Path filteredReport = Files.createTempFile("polyspace-", ".tsv");
+    Files.delete(filteredReport);
+
+    polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Function", "foo()", "Family", "Defect" });
+    assertEquals(5, polyspaceHelpersUtils.getCountFindings(filteredReport));
+    Files.delete(filteredReport);
+
+    polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Comment", "" });
+    assertEquals(25, polyspaceHelpersUtils.getCountFindings(filteredReport));
+    Files.delete(filteredReport);
+  }
+
+  private long countWhere(final String expression) throws Exception
+  {
+    final Path filteredReport = Files.createTempFile("polyspace-", ".tsv");
+    Files.delete(filteredReport);
+    polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "-where", expression });
+    final long count = polyspaceHelpersUtils.getCountFindings(filteredReport);
+    Files.delete(filteredReport);
+    return count;
+  }
+
+  @Test
+  void testReportFilterWhere() throws Exception
+  {
+    // Test filter expressions
+    assertEquals(5, countWhere("Function = foo() and Family = Defect"));
+    assertEquals(5, countWhere("Function = 'foo()' AND Family=\"Defect\""));
+    assertEquals(23, countWhere("Family = 'MISRA C:2012' or Function = foo()"));
+    assertEquals(20, countWhere("not Family = Defect"));
+    assertEquals(20, countWhere("Family != Defect"));
+    assertEquals(14, countWhere("Family in (Defect, 'MISRA C:2012')"));
+    assertEquals(11, countWhere("Family not in (Defect, 'MISRA C:2012')"));
+    assertEquals(20, countWhere("Function ~ '^foo'"));
+    assertEquals(5, countWhere("Function !~ '\\('"));
+    assertEquals(14, countWhere("FindingID > 34247555"));
+    assertEquals(11, countWhere("FindingID <= 34247555"));
+    assertEquals(0, countWhere("Function < 10"));
+    assertEquals(25, countWhere("Comment = ''"));
+    assertEquals(2, countWhere("(Family = Defect or Family = 'SEI CERT C') and not (Function = foo() or Family = Defect)"));
+    // keywords followed by a parenthesis without space
+    assertEquals(20, countWhere("not(Family=Defect)"));
+    assertEquals(5, countWhere("Comment='' and(Family=Defect)"));
+    assertEquals(23, countWhere("Family='MISRA C:2012' or(Function=foo())"));
+    assertEquals(2, countWhere("Family in(Defect,'SEI CERT C')and not(Function in(foo(),bar())or Family=Defect)"));
+  }
+
+  @Test
+  void testReportFilterWhereInvalid()
+  {
+    // Test errors in filter expressions
+    Exception exception = assertThrows(RuntimeException.class, () -> countWhere("Family = Defect and"));
+    assertEquals("Invalid filter expression 'Family = Defect and': missing column name at position 19", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () -> countWhere("Family in (Defect"));
+    assertEquals("Invalid filter expression 'Family in (Defect': expecting ')' at position 17", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () -> countWhere("Family == Defect"));
+    assertEquals("Invalid filter expression 'Family == Defect': expecting value instead of '=' at position 8", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () -> countWhere("Function ~ '('"));
+    assertEquals("Invalid filter expression 'Function ~ '('': invalid regular expression '(' at position 11", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () -> countWhere("FindingID > many"));
+    assertEquals("Invalid filter expression 'FindingID > many': 'many' is not a number at position 12", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () -> countWhere("Family = 'Defect"));
+    assertEquals("Invalid filter expression 'Family = 'Defect': missing closing quote at position 9", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () -> countWhere("Missing = Defect"));
+    assertEquals("Title 'Missing' does not exist", exception.getMessage());
+  }
+
+  private String filterContent(final Path report, final String[] filters) throws Exception
+  {
+    final Path filteredReport = Files.createTempFile("polyspace-", ".tsv");
+    Files.delete(filteredReport);
+    polyspaceHelpersUtils.reportFilter(report, filteredReport, "", filters);
+    final String content = PolyspaceUtils.getFileContent(filteredReport);
+    Files.delete(filteredReport);
+    return content;
+  }
+
+  @Test
+  void testReportIndex() throws Exception
+  {
+    // Test filters and counts give the same results with an index, including on short lines and mixed line endings
+    final Path report = Files.createTempFile("polyspace-", ".tsv");
+    Files.writeString(report, PolyspaceUtils.getFileContent(results) + "1\tDefect\r\n2\r3\tDefect\tStatic memory\n\n");
+    final String[][] filters = {
+      { "Function", "foo()" },
+      { "Family", "Defect", "Group", "Static memory" },
+      { "Comment", "" },
+      { "-where", "Family = Defect or FindingID < 3" },
+    };
+    final String[] expected = new String[filters.length];
+    for (int f = 0; f < filters.length; f++) {
+      expected[f] = filterContent(report, filters[f]);
+    }
+    final long expectedCount = polyspaceHelpersUtils.getCountFindings(report);
+
+    final Path index = polyspaceHelpersUtils.reportIndex(report);
+    assertEquals(polyspaceHelpersUtils.getReportIndex(report), index);
+    assertTrue(Files.exists(index));
+    for (int f = 0; f < filters.length; f++) {
+      assertEquals(expected[f], filterContent(report, filters[f]));
+    }
+    assertEquals(expectedCount, polyspaceHelpersUtils.getCountFindings(report));
+
+    // The index is rebuilt when the report changes
+    Files.writeString(report, "4\tDefect" + System.lineSeparator(), StandardOpenOption.APPEND);
+    assertEquals(expectedCount + 1, polyspaceHelpersUtils.getCountFindings(report));
+    assertTrue(filterContent(report, filters[3]).endsWith("4\tDefect" + System.lineSeparator()));
+
+    Files.delete(index);
+    Files.delete(report);
+  }
+
+  @Test
+  void testReportIndexHighCardinality() throws Exception
+  {
+    // Test a column with too many distinct values for its dictionary is filtered from the report lines
+    final Path report = Files.createTempFile("polyspace-", ".tsv");
+    final StringBuilder content = new StringBuilder("FindingID\tFamily\tComment\n");
+    for (int id = 1; id <= 70000; id++) {
+      content.append(id).append('\t').append((id % 3 == 0) ? "Defect" : "MISRA C:2012").append("\tcomment ").append(id).append('\n');
+    }
+    content.append("70001\n");
+    Files.writeString(report, content);
+    final String[][] filters = {
+      { "Comment", "comment 4" },
+      { "Family", "Defect", "FindingID", "9" },
+      { "-where", "FindingID > 69990 and Family = Defect or Comment ~ '^comment 1$'" },
+    };
+    final String[] expected = new String[filters.length];
+    for (int f = 0; f < filters.length; f++) {
+      expected[f] = filterContent(report, filters[f]);
+    }
+
+    final Path index = polyspaceHelpersUtils.reportIndex(report);
+    for (int f = 0; f < filters.length; f++) {
+      assertEquals(expected[f], filterContent(report, filters[f]));
+    }
+    assertEquals(70001, polyspaceHelpersUtils.getCountFindings(report));
+
+    Files.delete(index);
+    Files.delete(report);
+  }
+
+  @Test
+  void testReportIndexDoesNotExist()
+  {
+    Exception exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.reportIndex(Paths.get("missing report")));
+    assertEquals("Report 'missing report' does not exist", exception.getMessage());
+  }
+
+  @Test
+  void testReportDiff() throws Exception
+  {
+    // Baseline without the first 3 findings, with one finding twice and with an extra finding
+    final String[] lines = PolyspaceUtils.getFileContent(results).split("\\R");
+    final String removed = lines[1] + System.lineSeparator() + lines[2] + System.lineSeparator() + lines[3] + System.lineSeparator();
+    final String extra = lines[4].replace("foo()", "gone()");
+    final StringBuilder baselineContent = new StringBuilder(lines[0]).append(System.lineSeparator());
+    for (int l = 4; l < lines.length; l++) {
+      baselineContent.append(lines[l]).append(System.lineSeparator());
+    }
+    baselineContent.append(lines[10]).append(System.lineSeparator()).append(extra).append(System.lineSeparator());
+    final Path baseline = Files.createTempFile("polyspace-", ".tsv");
+    Files.writeString(baseline, baselineContent);
+    final Path diffReport = Files.createTempFile("polyspace-", ".tsv");
+    final Path newReport = polyspaceHelpersUtils.getReportOwner(diffReport, "new");
+    final Path fixedReport = polyspaceHelpersUtils.getReportOwner(diffReport, "fixed");
+    final String[] keys = { "FindingID", "Function" };
+
+    // Keys in memory, then reports sorted in temporary files
+    for (final long memoryBudget : new long[] { 1024 * 1024, 1 }) {
+      final long[] counts = polyspaceHelpersUtils.reportDiff(results, baseline, diffReport, keys, memoryBudget);
+      assertArrayEquals(new long[] { 3, 2 }, counts);
+      assertEquals(lines[0] + System.lineSeparator() + removed, PolyspaceUtils.getFileContent(newReport));
+      final String fixed = PolyspaceUtils.getFileContent(fixedReport);
+      assertTrue(fixed.contains(lines[10] + System.lineSeparator()));
+      assertTrue(fixed.contains(extra + System.lineSeparator()));
+    }
+
+    // Diff with an empty baseline
+    Files.writeString(baseline, "");
+    assertArrayEquals(new long[] { 25, 0 }, polyspaceHelpersUtils.reportDiff(results, baseline, diffReport, keys));
+
+    // Lines that are not valid UTF-8 are compared and copied as they are
+    final Path report = Files.createTempFile("polyspace-", ".tsv");
+    final byte[] invalid = { '1', '\t', 'f', (byte) 0xFF, '(', ')', '\n' };
+    final ByteArrayOutputStream reportContent = new ByteArrayOutputStream();
+    reportContent.write("FindingID\tFunction\n".getBytes(StandardCharsets.UTF_8));
+    reportContent.write(invalid);
+    reportContent.write("2\tg()\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(report, reportContent.toByteArray());
+    Files.writeString(baseline, "FindingID\tFunction\n2\tg()\n3\th()\n");
+    for (final long memoryBudget : new long[] { 1024 * 1024, 1 }) {
+      assertArrayEquals(new long[] { 1, 1 }, polyspaceHelpersUtils.reportDiff(report, baseline, diffReport, keys, memoryBudget));
+      final byte[] newLine = Arrays.copyOf(invalid, invalid.length - 1);
+      final byte[] newContent = Files.readAllBytes(newReport);
+      assertArrayEquals(newLine, Arrays.copyOfRange(newContent, newContent.length - newLine.length - System.lineSeparator().length(),
+                                                    newContent.length - System.lineSeparator().length()));
+      assertEquals("FindingID\tFunction" + System.lineSeparator() + "3\th()" + System.lineSeparator(), PolyspaceUtils.getFileContent(fixedReport));
+    }
+    Files.delete(report);
+
+    Files.delete(baseline);
+    Files.delete(diffReport);
+    Files.delete(newReport);
+    Files.delete(fixedReport);
+  }
+
+  @Test
+  void testReportDiffInvalid()
+  {
+    Exception exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.reportDiff(results, Paths.get("missing baseline"), Paths.get("diff"), new String[] { "FindingID" }));
+    assertEquals("Baseline report 'missing baseline' does not exist", exception.getMessage());
+
+    exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.reportDiff(results, results, Paths.get("diff"), new String[] { }));
+    assertEquals("Missing key titles", exception.getMessage());
+  }
+
+  @Test
+  void testReportAggregate() throws Exception
+  {
+    final String[] titles = { "Family", "Function" };
+    final List<PolyspaceHelpersUtils.AggregateCount> counts = polyspaceHelpersUtils.getReportAggregate(results, titles);
+    final String nl = System.lineSeparator();
+    assertEquals("Family\tFunction\tCount" + nl
+               + "SEI CERT C\tfoo()\t9" + nl
+               + "MISRA C:2012\tfoo()\t6" + nl
+               + "Defect\tfoo()\t5" + nl
+               + "MISRA C:2012\tFile Scope\t3" + nl
+               + "SEI CERT C\tFile Scope\t2", polyspaceHelpersUtils.formatReportAggregate(titles, counts, false));
+
+    final String[] family = { "Family" };
+    assertEquals("[" + nl
+               + "  {\"Family\": \"SEI CERT C\", \"Count\": 11}," + nl
+               + "  {\"Family\": \"MISRA C:2012\", \"Count\": 9}," + nl
+               + "  {\"Family\": \"Defect\", \"Count\": 5}" + nl
+               + "]", polyspaceHelpersUtils.formatReportAggregate(family, polyspaceHelpersUtils.getReportAggregate(results, family), true));
+
+    assertEquals("[]", polyspaceHelpersUtils.formatReportAggregate(family, polyspaceHelpersUtils.getReportAggregate(emptyResults, family), true));
+
+    Exception exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.getReportAggregate(results, new String[] { "Missing" }));
+    assertEquals("Title 'Missing' does not exist", exception.getMessage());
+  }
+
+  @Test
+  void testReportFilterParallel() throws Exception
+  {
+    // Test the parallel filter gives the same filtered report and owner list as the sequential filter
+    final String owner = "sbobin";
+    final Path filteredReport = Paths.get(cwd, "src", "test", "data", "computedParallelAllFoo.tsv");
+    final Path computedFile = polyspaceHelpersUtils.getReportOwner(filteredReport, owner);
+    final Path computedOwnersList = polyspaceHelpersUtils.getReportOwnerList(filteredReport);
+    Files.deleteIfExists(computedFile);
+    Files.deleteIfExists(computedOwnersList);
+
+    polyspaceHelpersUtils.reportFilterParallel(results, filteredReport, owner, new String[] { "Function", "foo()" }, 2);
+
+    assertEquals(PolyspaceUtils.getFileContent(allFoo), PolyspaceUtils.getFileContent(computedFile));
+    assertEquals(PolyspaceUtils.getFileContent(allFooOwnersList), PolyspaceUtils.getFileContent(computedOwnersList));
+    assertReportOwnerMeta(filteredReport, owner, computedFile);
+
+    Files.deleteIfExists(computedOwnersList);
+    Files.deleteIfExists(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport));
+    Files.deleteIfExists(computedFile);
+  }
+
+  @Test
+  void testReportFilterParallelManyChunks() throws Exception
+  {
+    // Test a report larger than several chunks, with mixed line endings and no ending new line
+    final String[] lines = PolyspaceUtils.getFileContent(results).split("\\R");
+    final Path largeReport = Files.createTempFile("polyspace-", ".tsv");
+    try (java.io.BufferedWriter writer = Files.newBufferedWriter(largeReport))
+    {
+      writer.write(lines[0] + "\r\n");
+      for (int i = 0; i < 40000; i++) {
+        writer.write(lines[1 + (i % (lines.length - 1))] + ((i % 3 == 0) ? "\r\n" : "\n"));
+      }
+      writer.write(lines[1]);
+    }
+    final Path sequentialReport = Files.createTempFile("polyspace-", ".tsv");
+    final Path parallelReport = Files.createTempFile("polyspace-", ".tsv");
+    Files.delete(sequentialReport);
+    Files.delete(parallelReport);
+
+    polyspaceHelpersUtils.reportFilter(largeReport, sequentialReport, "", new String[] { "Family", "MISRA C:2012" });
+    polyspaceHelpersUtils.reportFilterParallel(largeReport, parallelReport, "", new String[] { "Family", "MISRA C:2012" }, 3);
+
+    assertTrue(Files.size(largeReport) > 2 * 4 * 1024 * 1024);
+    assertEquals(-1, Files.mismatch(sequentialReport, parallelReport));
+
+    Files.delete(largeReport);
+    Files.delete(sequentialReport);
+    Files.delete(parallelReport);
+    Files.deleteIfExists(polyspaceHelpersUtils.getReportOwnerList(sequentialReport));
+    Files.deleteIfExists(polyspaceHelpersUtils.getReportOwnerList(parallelReport));
+  }
+
+  @Test
+  void testReportRoute() throws Exception
+  {
+    // Test routing to several owners in one pass gives the same result as one filter per owner
+    final Path filteredReport = Paths.get(cwd, "src", "test", "data", "computedRoute.tsv");
+    final Path sbobinReport = polyspaceHelpersUtils.getReportOwner(filteredReport, "sbobin");
+    final Path cpreveReport = polyspaceHelpersUtils.getReportOwner(filteredReport, "cpreve");
+    final Path nobodyReport = polyspaceHelpersUtils.getReportOwner(filteredReport, "nobody");
+    final Path computedOwnersList = polyspaceHelpersUtils.getReportOwnerList(filteredReport);
+    Files.deleteIfExists(sbobinReport);
+    Files.deleteIfExists(cpreveReport);
+    Files.deleteIfExists(nobodyReport);
+    Files.deleteIfExists(computedOwnersList);
+
+    polyspaceHelpersUtils.reportRoute(results, filteredReport, routeRules);
+
+    // sbobin: Function="foo()"
+    assertEquals(PolyspaceUtils.getFileContent(allFoo), PolyspaceUtils.getFileContent(sbobinReport));
+    // cpreve: Group="Static memory" or Family="MISRA C:2012"
+    assertEquals(
+      polyspaceHelpersUtils.getCountFindings(allStaticMemory) + polyspaceHelpersUtils.getCountFindings(allMisraC2012),
+      polyspaceHelpersUtils.getCountFindings(cpreveReport));
+    // nobody: no finding, the report only has a title line and nobody is not an owner
+    assertEquals(0, polyspaceHelpersUtils.getCountFindings(nobodyReport));
+    assertEquals("sbobin" + System.lineSeparator() + "cpreve" + System.lineSeparator(), PolyspaceUtils.getFileContent(computedOwnersList));
+    assertReportOwnerMeta(filteredReport, "sbobin", sbobinReport);
+    assertReportOwnerMeta(filteredReport, "cpreve", cpreveReport);
+    assertNull(polyspaceHelpersUtils.readReportOwnerMeta(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport)).get("nobody"));
+
+    Files.deleteIfExists(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport));
+    Files.deleteIfExists(sbobinReport);
+    Files.deleteIfExists(cpreveReport);
+    Files.deleteIfExists(nobodyReport);
+    Files.deleteIfExists(computedOwnersList);
+  }
+
+  @Test
+  void testReportRouteWhere() throws Exception
+  {
+    // Test rules given as filter expressions, in the parallel filter too
+    final Path rules = Files.createTempFile("polyspace-", ".rules");
+    Files.writeString(rules, "sbobin\t-where\tFunction = foo() or Family = Defect" + System.lineSeparator());
+    final Path routedReport = Files.createTempFile("polyspace-", ".tsv");
+    final Path filteredReport = Files.createTempFile("polyspace-", ".tsv");
+    final Path routedReport_owner = polyspaceHelpersUtils.getReportOwner(routedReport, "sbobin");
+    final Path filteredReport_owner = polyspaceHelpersUtils.getReportOwner(filteredReport, "sbobin");
+
+    polyspaceHelpersUtils.reportRoute(results, routedReport, rules);
+    polyspaceHelpersUtils.reportFilterParallel(results, filteredReport, "sbobin", new String[] { "-where", "Function = foo() or Family = Defect" }, 2);
+
+    assertEquals(20, polyspaceHelpersUtils.getCountFindings(routedReport_owner));
+    assertEquals(PolyspaceUtils.getFileContent(routedReport_owner), PolyspaceUtils.getFileContent(filteredReport_owner));
+
+    Files.delete(rules);
+    Files.delete(routedReport);
+    Files.delete(filteredReport);
+    Files.delete(routedReport_owner);
+    Files.delete(filteredReport_owner);
+    Files.delete(polyspaceHelpersUtils.getReportOwnerList(routedReport));
+    Files.delete(polyspaceHelpersUtils.getReportOwnerList(filteredReport));
+    Files.delete(polyspaceHelpersUtils.getReportOwnerMeta(routedReport));
+    Files.delete(polyspaceHelpersUtils.getReportOwnerMeta(filteredReport));
+  }
+
+  @Test
+  void testReportRouteManyOwners() throws Exception
+  {
+    // Test routing to more owners than the number of filtered reports open at the same time
+    final Path directory = Files.createTempDirectory("polyspace-");
+    final Path rules = directory.resolve("rules.txt");
+    final StringBuilder content = new StringBuilder();
+    for (int o = 0; o < 150; o++) {
+      content.append("owner").append(o).append("\t-where\tFamily = Defect or FindingID < 3").append(System.lineSeparator());
+    }
+    Files.writeString(rules, content);
+    final Path filteredReport = directory.resolve("routed.tsv");
+
+    polyspaceHelpersUtils.reportRoute(results, filteredReport, rules);
+
+    final String expected = filterContent(results, new String[] { "-where", "Family = Defect or FindingID < 3" });
+    for (int o = 0; o < 150; o++) {
+      final Path report = polyspaceHelpersUtils.getReportOwner(filteredReport, "owner" + o);
+      assertEquals(expected, PolyspaceUtils.getFileContent(report));
+      assertReportOwnerMeta(filteredReport, "owner" + o, report);
+    }
+
+    try (var files = Files.list(directory)) {
+      for (final Path file : files.collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  void testReportRouteInvalidRules() throws Exception
+  {
+    final Path rules = Files.createTempFile("polyspace-", ".rules");
+    Files.writeString(rules, "owner\tFunction" + System.lineSeparator());
+
+    Exception exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.reportRoute(results, Paths.get("filtered report"), rules));
+    assertEquals("Invalid rule at line 1 of '" + rules + "': expecting <owner> ([<title> <value>]+ | -where <expression>) separated by tabs", exception.getMessage());
+
+    Files.delete(rules);
+  }
+
   @Test
   void testReportFilterOriginalReportDoesNotExist()
   {
@@ -239,6 +745,22 @@ class PolyspaceHelpersUtilsTest {
     assertEquals(25, polyspaceHelpersUtils.getCountFindings(results));
   }
 
+  @Test
+  void testReportFilterInterrupted() throws Exception
+  {
+    // An aborted build interrupts the thread scanning the report
+    final Path filteredReport = Paths.get(cwd, "src", "test", "data", "computedInterrupted.tsv");
+    Files.deleteIfExists(filteredReport);
+
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(IOException.class, () -> polyspaceHelpersUtils.reportFilter(results, filteredReport, "", new String[] { "Family", "MISRA C:2012" }));
+    } finally {
+      Thread.interrupted();
+      Files.deleteIfExists(filteredReport);
+    }
+  }
+
   @Test
   void testGetReportStatus() throws Exception
   {
@@ -273,4 +795,50 @@ class PolyspaceHelpersUtilsTest {
     assertEquals("Cannot find project url from '" + Paths.get(cwd, "src", "test", "data", "accessUploadFailureOutput.txt'"), exception.getMessage());
   }
 
+  @Test
+  void testGetAccessResult() throws Exception
+  {
+    assertEquals("POLYSPACE_RUN_ID='17263'" + System.lineSeparator()
+      + "POLYSPACE_PROJECT_ID='4928'" + System.lineSeparator()
+      + "POLYSPACE_PROJECT_URL='https://access:9443/metrics/index.html?a=review&p=4928&r=17263'",
+      polyspaceHelpersUtils.getAccessResult(accessUploadSuccessOutput, "https://access:9443", false));
+    assertEquals("POLYSPACE_RUN_ID='17263'" + System.lineSeparator() + "POLYSPACE_PROJECT_ID='4928'",
+      polyspaceHelpersUtils.getAccessResult(accessUploadSuccessOutput, "", false));
+    assertEquals("{\"runId\": \"17263\", \"projectId\": \"4928\", \"url\": \"ACCESS_URL/metrics/index.html?a=review&p=4928&r=17263\"}",
+      polyspaceHelpersUtils.getAccessResult(accessUploadSuccessOutput, "ACCESS_URL", true));
+
+    Exception exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.getAccessResult(accessUploadFailureOutput, "", true));
+    assertEquals("Cannot find runId in '" + accessUploadFailureOutput + "'", exception.getMessage());
+  }
+
+  @Test
+  void testTeeAccessUploadResult() throws Exception
+  {
+    final Path resultFile = Paths.get(cwd, "src", "test", "data", "computedAccessResult.env");
+    final byte[] upload = Files.readAllBytes(accessUploadSuccessOutput);
+
+    // the upload output is copied unchanged, and the result file has the same content as -print-access-result
+    ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    polyspaceHelpersUtils.teeAccessUploadResult(new ByteArrayInputStream(upload), copy, resultFile, "ACCESS_URL", false);
+    assertArrayEquals(upload, copy.toByteArray());
+    assertEquals(polyspaceHelpersUtils.getAccessResult(accessUploadSuccessOutput, "ACCESS_URL", false) + System.lineSeparator(),
+      PolyspaceUtils.getFileContent(resultFile));
+
+    // the result line may be the last line, without line terminator
+    final String last = "Upload successful for RUN_ID 12 and PROJECT_ID 34";
+    polyspaceHelpersUtils.teeAccessUploadResult(new ByteArrayInputStream(last.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(), resultFile, "", true);
+    assertEquals("{\"runId\": \"12\", \"projectId\": \"34\"}" + System.lineSeparator(), PolyspaceUtils.getFileContent(resultFile));
+
+    // a failed upload is copied, and leaves no result file
+    final byte[] failure = Files.readAllBytes(accessUploadFailureOutput);
+    copy = new ByteArrayOutputStream();
+    final ByteArrayOutputStream failureCopy = copy;
+    Exception exception = assertThrows(RuntimeException.class, () ->
+      polyspaceHelpersUtils.teeAccessUploadResult(new ByteArrayInputStream(failure), failureCopy, resultFile, "", false));
+    assertEquals("Cannot find runId in the upload output", exception.getMessage());
+    assertArrayEquals(failure, copy.toByteArray());
+    assertFalse(Files.exists(resultFile));
+  }
+
 }
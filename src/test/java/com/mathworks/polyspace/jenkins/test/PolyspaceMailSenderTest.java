@@ -0,0 +1,396 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package com.mathworks.polyspace.jenkins.test;
+
+import com.mathworks.polyspace.jenkins.PolyspaceMailDispatcher;
+import com.mathworks.polyspace.jenkins.PolyspaceMailQueue;
+import com.mathworks.polyspace.jenkins.PolyspaceMailSender;
+import com.mathworks.polyspace.jenkins.PolyspaceMailSenderPool;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.PasswordAuthentication;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class PolyspaceMailSenderTest {
+
+    private Session session;
+    private Transport transport;
+    private MimeMessage message;
+    private Address[] recipients;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        session = mock(Session.class);
+        transport = mock(Transport.class);
+        message = mock(MimeMessage.class);
+        recipients = new Address[] { new InternetAddress("userA@example.com") };
+        when(session.getTransport(any(Address.class))).thenReturn(transport);
+        when(message.getAllRecipients()).thenReturn(recipients);
+    }
+
+    @Test
+    void testSendOnOneConnection() throws Exception {
+        try (PolyspaceMailSender sender = new PolyspaceMailSender(session)) {
+            for (int i = 0; i < 3; i++) {
+                sender.send(message);
+            }
+            assertEquals(3, sender.getSent());
+            assertEquals(1, sender.getConnections());
+        }
+        verify(transport, times(1)).connect();
+        verify(transport, times(3)).sendMessage(message, recipients);
+        verify(transport, times(1)).close();
+    }
+
+    @Test
+    void testSendReconnects() throws Exception {
+        // the server closes the connection after the first e-mail
+        doNothing().doThrow(new MessagingException("Can't send command to SMTP host")).doNothing()
+            .when(transport).sendMessage(message, recipients);
+        try (PolyspaceMailSender sender = new PolyspaceMailSender(session)) {
+            sender.send(message);
+            sender.send(message);
+            assertEquals(2, sender.getSent());
+            assertEquals(2, sender.getConnections());
+        }
+        verify(transport, times(2)).connect();
+        verify(transport, times(3)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testSendFailedIsNotSentAgain() throws Exception {
+        doThrow(new SendFailedException("Invalid Addresses")).when(transport).sendMessage(message, recipients);
+        try (PolyspaceMailSender sender = new PolyspaceMailSender(session)) {
+            assertThrows(SendFailedException.class, () -> sender.send(message));
+            assertEquals(0, sender.getSent());
+        }
+        verify(transport, times(1)).connect();
+        verify(transport, times(1)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testPoolCapsConnections() throws Exception {
+        // 8 threads send 40 e-mails on at most 2 connections
+        final AtomicInteger sending = new AtomicInteger();
+        final AtomicInteger maxSending = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxSending.accumulateAndGet(sending.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            sending.decrementAndGet();
+            return null;
+        }).when(transport).sendMessage(message, recipients);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (PolyspaceMailSenderPool pool = new PolyspaceMailSenderPool(session, 2)) {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                results.add(executor.submit(() -> {
+                    final PolyspaceMailSender sender = pool.acquire();
+                    try {
+                        sender.send(message);
+                    } finally {
+                        pool.release(sender);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            assertEquals(40, pool.getSent());
+            assertEquals(2, pool.getConnections());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(maxSending.get() <= 2);
+        verify(transport, times(2)).connect();
+        verify(transport, times(2)).close();
+    }
+
+    @Test
+    void testSendWithoutRecipient() throws Exception {
+        when(message.getAllRecipients()).thenReturn(null);
+        try (PolyspaceMailSender sender = new PolyspaceMailSender(session)) {
+            assertThrows(SendFailedException.class, () -> sender.send(message));
+        }
+        verify(transport, never()).connect();
+    }
+
+    /** Records the statuses of a queued e-mail until it is sent or failed */
+    private static class StatusRecorder implements PolyspaceMailQueue.Listener {
+        final List<PolyspaceMailQueue.Status> statuses = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile int attempts;
+
+        @Override
+        public void update(PolyspaceMailQueue.Status status, int attempts, String error) {
+            statuses.add(status);
+            this.attempts = attempts;
+            if ((status == PolyspaceMailQueue.Status.SENT) || (status == PolyspaceMailQueue.Status.FAILED)) {
+                done.countDown();
+            }
+        }
+    }
+
+    @Test
+    void testQueueRetries() throws Exception {
+        // the mail server is not reachable for the first two attempts
+        doThrow(new MessagingException("Couldn't connect to host")).doThrow(new MessagingException("Couldn't connect to host")).doNothing()
+            .when(transport).connect();
+        final PolyspaceMailQueue queue = new PolyspaceMailQueue(10, 5);
+        try {
+            final StatusRecorder first = new StatusRecorder();
+            final StatusRecorder second = new StatusRecorder();
+            queue.submit(session, List.of(new PolyspaceMailQueue.Mail(message, first), new PolyspaceMailQueue.Mail(message, second)));
+            assertTrue(first.done.await(10, TimeUnit.SECONDS));
+            assertTrue(second.done.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(PolyspaceMailQueue.Status.QUEUED, PolyspaceMailQueue.Status.RETRYING,
+                                 PolyspaceMailQueue.Status.RETRYING, PolyspaceMailQueue.Status.SENT), first.statuses);
+            assertEquals(first.statuses, second.statuses);
+            assertEquals(3, first.attempts);
+            // the second e-mail is not tried while the server is not reachable
+            assertEquals(1, second.attempts);
+        } finally {
+            queue.shutdown();
+        }
+        verify(transport, times(3)).connect();
+        verify(transport, times(2)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testQueueGivesUp() throws Exception {
+        doThrow(new MessagingException("Couldn't connect to host")).when(transport).connect();
+        final PolyspaceMailQueue queue = new PolyspaceMailQueue(10, 3);
+        try {
+            final StatusRecorder recorder = new StatusRecorder();
+            queue.submit(session, List.of(new PolyspaceMailQueue.Mail(message, recorder)));
+            assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+            assertEquals(PolyspaceMailQueue.Status.FAILED, recorder.statuses.get(recorder.statuses.size() - 1));
+            assertEquals(3, recorder.attempts);
+        } finally {
+            queue.shutdown();
+        }
+        verify(transport, times(3)).connect();
+    }
+
+    @Test
+    void testQueueDoesNotRetryRejected() throws Exception {
+        doThrow(new SendFailedException("Invalid Addresses")).when(transport).sendMessage(message, recipients);
+        final PolyspaceMailQueue queue = new PolyspaceMailQueue(10, 5);
+        try {
+            final StatusRecorder recorder = new StatusRecorder();
+            queue.submit(session, List.of(new PolyspaceMailQueue.Mail(message, recorder)));
+            assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(PolyspaceMailQueue.Status.QUEUED, PolyspaceMailQueue.Status.FAILED), recorder.statuses);
+        } finally {
+            queue.shutdown();
+        }
+        verify(transport, times(1)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testQueueRetriesTransientReply() throws Exception {
+        // the mail server throttles the first attempt
+        doThrow(new SendFailedException("421 4.7.0 Too many messages, try again later")).doNothing()
+            .when(transport).sendMessage(message, recipients);
+        final PolyspaceMailQueue queue = new PolyspaceMailQueue(10, 5);
+        try {
+            final StatusRecorder recorder = new StatusRecorder();
+            queue.submit(session, List.of(new PolyspaceMailQueue.Mail(message, recorder)));
+            assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(PolyspaceMailQueue.Status.QUEUED, PolyspaceMailQueue.Status.RETRYING,
+                                 PolyspaceMailQueue.Status.SENT), recorder.statuses);
+        } finally {
+            queue.shutdown();
+        }
+        verify(transport, times(2)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testDispatcherRetriesTransientReply() throws Exception {
+        doThrow(new SendFailedException("421 4.7.0 Too many messages, try again later")).doNothing()
+            .when(transport).sendMessage(message, recipients);
+        final PolyspaceMailDispatcher dispatcher = new PolyspaceMailDispatcher(1, 0, 3, 10);
+        try {
+            dispatcher.send(session, message);
+            assertEquals(1, dispatcher.getSent());
+        } finally {
+            dispatcher.shutdown();
+        }
+        verify(transport, times(2)).sendMessage(message, recipients);
+        verify(transport, times(1)).close();
+    }
+
+    @Test
+    void testDispatcherDoesNotRetryPermanentReply() throws Exception {
+        doThrow(new SendFailedException("550 5.1.1 User unknown")).when(transport).sendMessage(message, recipients);
+        final PolyspaceMailDispatcher dispatcher = new PolyspaceMailDispatcher(1, 0, 3, 10);
+        try {
+            assertThrows(SendFailedException.class, () -> dispatcher.send(session, message));
+            assertEquals(0, dispatcher.getSent());
+        } finally {
+            dispatcher.shutdown();
+        }
+        verify(transport, times(1)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testDispatcherIsTransient() {
+        assertTrue(PolyspaceMailDispatcher.isTransient(new MessagingException("451 4.3.0 Temporary failure")));
+        assertTrue(PolyspaceMailDispatcher.isTransient(new MessagingException("Invalid Addresses", new MessagingException("450 4.2.1 Mailbox busy"))));
+        assertFalse(PolyspaceMailDispatcher.isTransient(new SendFailedException("550 5.1.1 User unknown")));
+        assertFalse(PolyspaceMailDispatcher.isTransient(new MessagingException("Couldn't connect to host, port: 4210")));
+        // throttling at connect time
+        assertTrue(PolyspaceMailDispatcher.isTransient(new MessagingException("Got bad greeting from SMTP host: smtp.example.com, port: 25, response: 421")));
+        assertFalse(PolyspaceMailDispatcher.isTransient(new MessagingException("Got bad greeting from SMTP host: smtp.example.com, port: 25, response: 554")));
+        // reply code of the SMTP exceptions of the provider, whatever their message
+        assertTrue(PolyspaceMailDispatcher.isTransient(new ReplyException("Service not available", 421)));
+        assertFalse(PolyspaceMailDispatcher.isTransient(new ReplyException("421 in the text of a permanent reply", 554)));
+    }
+
+    /** Same as the SMTP exceptions of the provider, public classes that give the reply code of the server */
+    public static final class ReplyException extends MessagingException {
+        private static final long serialVersionUID = 1L;
+        private final int returnCode;
+
+        ReplyException(final String message, final int returnCode) {
+            super(message);
+            this.returnCode = returnCode;
+        }
+
+        public int getReturnCode() {
+            return returnCode;
+        }
+    }
+
+    @Test
+    void testDispatcherRetriesBadGreeting() throws Exception {
+        // the server throttles the connections: the e-mail is sent once the server accepts the connection again
+        doThrow(new MessagingException("Got bad greeting from SMTP host: smtp.example.com, port: 25, response: 421"))
+            .doNothing()
+            .when(transport).connect();
+        final PolyspaceMailDispatcher dispatcher = new PolyspaceMailDispatcher(1, 0, 3, 10);
+        try {
+            dispatcher.send(session, message);
+            assertEquals(1, dispatcher.getSent());
+        } finally {
+            dispatcher.shutdown();
+        }
+        verify(transport, times(2)).connect();
+        verify(transport, times(1)).sendMessage(message, recipients);
+    }
+
+    @Test
+    void testDispatcherSharesConnections() throws Exception {
+        // 2 builds send 20 e-mails each, with their own sessions of the same mail server, on at most 2 connections
+        final Session otherSession = mock(Session.class);
+        when(otherSession.getTransport(any(Address.class))).thenReturn(transport);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final PolyspaceMailDispatcher dispatcher = new PolyspaceMailDispatcher(2, 0, 1, 0);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                final Session buildSession = ((i % 2) == 0) ? session : otherSession;
+                results.add(executor.submit(() -> {
+                    dispatcher.send(buildSession, message);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            assertEquals(40, dispatcher.getSent());
+        } finally {
+            executor.shutdownNow();
+            dispatcher.shutdown();
+        }
+        verify(transport, atMost(2)).connect();
+    }
+
+    @Test
+    void testDispatcherReconnectsWhenCredentialsChange() throws Exception {
+        // same mail server settings, but the password changed in the global configuration
+        final Session newSession = mock(Session.class);
+        final Transport newTransport = mock(Transport.class);
+        when(newSession.getTransport(any(Address.class))).thenReturn(newTransport);
+        when(session.requestPasswordAuthentication(any(), anyInt(), any(), any(), any())).thenReturn(new PasswordAuthentication("jenkins", "old"));
+        when(newSession.requestPasswordAuthentication(any(), anyInt(), any(), any(), any())).thenReturn(new PasswordAuthentication("jenkins", "new"));
+        final PolyspaceMailDispatcher dispatcher = new PolyspaceMailDispatcher(1, 0, 1, 0);
+        try {
+            dispatcher.send(session, message);
+            dispatcher.send(session, message);
+            dispatcher.send(newSession, message);
+        } finally {
+            dispatcher.shutdown();
+        }
+        verify(transport, times(1)).connect();
+        verify(transport, times(1)).close();
+        verify(newTransport, times(1)).connect();
+        verify(newTransport, times(1)).sendMessage(message, recipients);
+        // the credentials are requested once per session, not for each e-mail
+        verify(session, times(1)).requestPasswordAuthentication(any(), anyInt(), any(), any(), any());
+        verify(newSession, times(1)).requestPasswordAuthentication(any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void testTokenBucket() throws Exception {
+        // 6000 e-mails per minute: 100 per second, after the first one
+        final PolyspaceMailDispatcher.TokenBucket bucket = new PolyspaceMailDispatcher.TokenBucket(6000, 1);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            bucket.acquire();
+        }
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 95, "Elapsed " + elapsed + " ms");
+
+        // no limit
+        final PolyspaceMailDispatcher.TokenBucket unlimited = new PolyspaceMailDispatcher.TokenBucket(0, 1);
+        final long unlimitedStart = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            unlimited.acquire();
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - unlimitedStart) < 95);
+    }
+}
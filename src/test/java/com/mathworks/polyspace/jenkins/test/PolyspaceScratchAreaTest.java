@@ -0,0 +1,134 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+
+package com.mathworks.polyspace.jenkins.test;
+
+import com.mathworks.polyspace.jenkins.utils.PolyspaceScratchArea;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyspaceScratchAreaTest {
+
+    @TempDir
+    Path root;
+
+    private PolyspaceScratchArea area;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        area = new PolyspaceScratchArea(root, 100);
+    }
+
+    private static Path write(PolyspaceScratchArea.Scratch scratch, String name, String content) throws IOException {
+        final Path file = scratch.newDirectory().resolve(name);
+        Files.writeString(file, content);
+        return scratch.add(file, name);
+    }
+
+    private long storeFiles() throws IOException {
+        try (var files = Files.list(root.resolve("store"))) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testDeduplication() throws IOException {
+        try (PolyspaceScratchArea.Scratch first = area.open("job/test#1");
+             PolyspaceScratchArea.Scratch second = area.open("job/test#2")) {
+            final Path a = write(first, "report_userA.tsv", "same findings");
+            final Path b = write(first, "report_userB.tsv", "same findings");
+            final Path c = write(second, "report_userA.tsv", "same findings");
+            assertEquals("report_userA.tsv", a.getFileName().toString());
+            assertEquals("report_userB.tsv", b.getFileName().toString());
+            assertEquals("same findings", Files.readString(c));
+            assertEquals(1, storeFiles());
+            assertEquals(13, area.getUsage());
+            assertTrue(first.getDirectory().getFileName().toString().startsWith("job_test_1-"));
+        }
+        // the build directories are deleted, the store is kept for the next builds
+        try (var builds = Files.list(root.resolve("builds"))) {
+            assertEquals(0, builds.count());
+        }
+        assertEquals(1, storeFiles());
+    }
+
+    @Test
+    void testQuota() throws IOException {
+        final String forty = "x".repeat(40);
+        try (PolyspaceScratchArea.Scratch old = area.open("old")) {
+            write(old, "a.tsv", forty + "a");
+            write(old, "b.tsv", forty + "b");
+        }
+        // the least recently used file is deleted first
+        final Path leastRecentlyUsed = root.resolve("store").resolve(hashOf(root, forty + "a"));
+        Files.setLastModifiedTime(leastRecentlyUsed, FileTime.fromMillis(0));
+        try (PolyspaceScratchArea.Scratch scratch = area.open("new")) {
+            write(scratch, "c.tsv", forty + "c");
+            assertEquals(82, area.getUsage());
+            assertEquals(2, storeFiles());
+            assertFalse(Files.exists(leastRecentlyUsed));
+
+            // files used by a running build are not deleted
+            write(scratch, "d.tsv", forty + "d");
+            final IOException exception = assertThrows(IOException.class, () -> write(scratch, "e.tsv", forty + "e"));
+            assertEquals("Polyspace scratch area is full: 82 bytes used by running builds, 41 bytes more do not fit in the quota of 100 bytes",
+                         exception.getMessage());
+        }
+
+        // no limit
+        area.setQuota(0);
+        try (PolyspaceScratchArea.Scratch scratch = area.open("unlimited")) {
+            write(scratch, "e.tsv", "y".repeat(200));
+        }
+        assertEquals(282, area.getUsage());
+    }
+
+    @Test
+    void testLeftoversDeleted() throws IOException {
+        final PolyspaceScratchArea.Scratch crashed = area.open("crashed");
+        write(crashed, "a.tsv", "a");
+        // a new scratch area, as after a restart of the controller
+        final PolyspaceScratchArea restarted = new PolyspaceScratchArea(root, 100);
+        assertFalse(Files.exists(crashed.getDirectory()));
+        assertEquals(1, restarted.getUsage());
+    }
+
+    private static String hashOf(Path root, String content) throws IOException {
+        try (var files = Files.list(root.resolve("store"))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.readString(file).equals(content)) {
+                    return file.getFileName().toString();
+                }
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright (c) 2026 The MathWorks, Inc.
+// All Rights Reserved.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+
+package com.mathworks.polyspace.jenkins.test;
+
+import hudson.FilePath;
+import hudson.model.Result;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.nio.file.Paths;
+
+@WithJenkins
+class PolyspaceStepsTest {
+
+  private static String cwd = System.getProperty("user.dir");
+
+  private JenkinsRule rule;
+  private WorkflowJob job;
+
+  /* Create a pipeline whose workspace contains a report and an upload output */
+  @BeforeEach
+  void initialize(JenkinsRule r) throws Exception {
+    rule = r;
+    job = rule.createProject(WorkflowJob.class, "steps");
+    final FilePath workspace = rule.jenkins.getWorkspaceFor(job);
+    workspace.child("results.tsv").copyFrom(new FilePath(Paths.get(cwd, "src", "test", "data", "results.tsv").toFile()));
+    workspace.child("upload_out").copyFrom(new FilePath(Paths.get(cwd, "src", "test", "data", "accessUploadSuccessOutput.txt").toFile()));
+  }
+
+  private WorkflowRun runPipeline(final String script, final Result expected) throws Exception {
+    job.setDefinition(new CpsFlowDefinition("node {\n" + script + "\n}", true));
+    return rule.assertBuildStatus(expected, job.scheduleBuild2(0));
+  }
+
+  // Check the values returned by the steps
+  @Test
+  void testSteps() throws Exception {
+    final WorkflowRun run = runPipeline(
+        "def filtered = polyspaceReportFilter report: 'results.tsv', filteredReport: 'filtered.tsv', owner: 'userA', filters: ['Family', 'MISRA C:2012']\n"
+      + "echo \"filtered=${filtered}\"\n"
+      + "def where = polyspaceReportFilter report: 'results.tsv', filteredReport: 'filtered.tsv', owner: 'userB', where: \"Family = 'MISRA C:2012'\"\n"
+      + "echo \"where=${where}\"\n"
+      + "echo \"count=${polyspaceReportCount report: 'results.tsv'}\"\n"
+      + "echo \"status=${polyspaceReportStatus report: 'results.tsv', max: 10}\"\n"
+      + "def result = polyspaceAccessResult output: 'upload_out', accessUrl: 'https://access:9443'\n"
+      + "echo \"runId=${result.runId} projectId=${result.projectId} url=${result.url}\"",
+      Result.SUCCESS);
+
+    rule.assertLogContains("filtered=9", run);
+    rule.assertLogContains("where=9", run);
+    rule.assertLogContains("count=25", run);
+    rule.assertLogContains("status=UNSTABLE", run);
+    rule.assertLogContains("runId=17263 projectId=4928 url=https://access:9443/metrics/index.html?a=review&p=4928&r=17263", run);
+  }
+
+  // Check the errors of the steps fail the build
+  @Test
+  void testStepErrors() throws Exception {
+    WorkflowRun run = runPipeline("polyspaceReportFilter report: 'results.tsv', filteredReport: 'filtered.tsv', filters: ['Family', 'Defect'], where: 'Family = Defect'", Result.FAILURE);
+    rule.assertLogContains("Use either filters or where, not both", run);
+
+    run = runPipeline("polyspaceReportCount report: 'missing.tsv'", Result.FAILURE);
+    rule.assertLogContains("missing.tsv", run);
+  }
+}
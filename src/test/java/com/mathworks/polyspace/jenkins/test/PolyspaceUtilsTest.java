@@ -21,14 +21,32 @@
 
 package com.mathworks.polyspace.jenkins.test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipInputStream;
 
+import com.mathworks.polyspace.jenkins.utils.PolyspaceDigestArchive;
+import com.mathworks.polyspace.jenkins.utils.PolyspaceMailTemplate;
 import com.mathworks.polyspace.jenkins.utils.PolyspaceUtils;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class PolyspaceUtilsTest {
 
@@ -50,6 +68,41 @@ class PolyspaceUtilsTest {
       PolyspaceUtils.getFileContent(withEndingNewLine));
   }
 
+  @Test
+  void testZipFile() throws Exception
+  {
+    final Path report = Files.createTempFile("polyspace-", ".tsv");
+    final Path zip = Files.createTempFile("polyspace-", ".zip");
+    final String content = "FindingID\tFamily\tGroup\n".repeat(10000);
+    Files.writeString(report, content);
+
+    final long size = PolyspaceUtils.zipFile(report, "report.tsv", zip);
+    assertEquals(Files.size(zip), size);
+    assertTrue(size * 10 < content.length());
+    try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+      assertEquals("report.tsv", in.getNextEntry().getName());
+      assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+    Files.delete(report);
+    Files.delete(zip);
+  }
+
+  @Test
+  void testNewRangeInputStream() throws Exception
+  {
+    final Path file = Files.createTempFile("polyspace-", ".bin");
+    Files.writeString(file, "0123456789");
+    try (InputStream in = PolyspaceUtils.newRangeInputStream(file, 3, 4)) {
+      assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+    try (InputStream in = PolyspaceUtils.newRangeInputStream(file, 8, 4)) {
+      assertEquals('8', in.read());
+      assertEquals("9", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      assertEquals(-1, in.read());
+    }
+    Files.delete(file);
+  }
+
   @Test
   void testGetFileLineCount() throws Exception
   {
@@ -57,4 +110,104 @@ class PolyspaceUtilsTest {
     assertEquals(3, PolyspaceUtils.getFileLineCount(withEndingNewLine));
   }
 
+  @Test
+  void testGetFileLineCountLineEndings() throws Exception
+  {
+    // Same count as Files.lines for all line terminators
+    final Path file = Files.createTempFile("polyspace-", ".txt");
+    final String[] contents = { "", "a", "\n", "a\r\nb\r\n", "a\rb\rc", "a\r\rb\n\n", "\r\n\r\n\r" };
+    for (final String content : contents) {
+      Files.writeString(file, content);
+      try (Stream<String> lines = Files.lines(file)) {
+        assertEquals(lines.count(), PolyspaceUtils.getFileLineCount(file), "Content '" + content + "'");
+      }
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void testGetFileLineCountMax() throws Exception
+  {
+    final Path file = Files.createTempFile("polyspace-", ".txt");
+    Files.writeString(file, "line\n".repeat(100000));
+    // Counting stops above max
+    final long count = PolyspaceUtils.getFileLineCount(file, 10);
+    assertTrue((count > 10) && (count < 100000));
+    assertEquals(100000, PolyspaceUtils.getFileLineCount(file, 100000));
+    // Counts are cached until the file changes
+    assertEquals(100000, PolyspaceUtils.getFileLineCount(file, 10));
+    Files.writeString(file, "line\n", StandardOpenOption.APPEND);
+    assertEquals(100001, PolyspaceUtils.getFileLineCount(file));
+    Files.delete(file);
+  }
+
+  @Test
+  void testMailTemplate()
+  {
+    final PolyspaceMailTemplate template = PolyspaceMailTemplate.compile("Dear ${owner}, you own ${count} finding(s).\n${owner} - ${unknown} - $${owner} - $5 - ${ - ${not a name}");
+    assertTrue(template.uses("owner"));
+    assertTrue(template.uses("count"));
+    assertFalse(template.uses("buildUrl"));
+
+    // The same buffer is reused for each owner
+    final StringBuilder buffer = new StringBuilder();
+    final Map<String, String> values = new HashMap<>();
+    values.put("owner", "userA");
+    values.put("count", "3");
+    assertEquals("Dear userA, you own 3 finding(s).\nuserA - ${unknown} - ${owner} - $5 - ${ - ${not a name}", template.render(values::get, buffer));
+    values.put("owner", "userB");
+    values.put("count", "0");
+    assertEquals("Dear userB, you own 0 finding(s).\nuserB - ${unknown} - ${owner} - $5 - ${ - ${not a name}", template.render(values::get, buffer));
+  }
+
+  @Test
+  void testMailTemplateNoPlaceholder()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    assertEquals("", PolyspaceMailTemplate.compile("").render(name -> "x", buffer));
+    assertEquals("Subject $", PolyspaceMailTemplate.compile("Subject $").render(name -> "x", buffer));
+    assertEquals("x", PolyspaceMailTemplate.compile("${a}").render(name -> "x", buffer));
+    assertEquals("xx", PolyspaceMailTemplate.compile("${a}${b}").render(name -> "x", buffer));
+  }
+
+  @Test
+  void testDigestArchive(@TempDir Path directory) throws Exception
+  {
+    // incompressible files of 1000 bytes, with a cap of about 2 files per zip
+    final Random random = new Random(0);
+    final byte[][] contents = new byte[5][1000];
+    for (final byte[] content : contents) {
+      random.nextBytes(content);
+    }
+    final byte[] large = new byte[5000];
+    random.nextBytes(large);
+
+    final PolyspaceDigestArchive digest = new PolyspaceDigestArchive(directory, "digest", 2500);
+    try (PolyspaceDigestArchive archive = digest) {
+      assertEquals(1, archive.add("a.tsv", new ByteArrayInputStream(contents[0]), 1000));
+      assertEquals(1, archive.add("b.tsv", new ByteArrayInputStream(contents[1]), 1000));
+      assertEquals(2, archive.add("c.tsv", new ByteArrayInputStream(contents[2]), 1000));
+      // a file above the cap is alone in its zip
+      assertEquals(3, archive.add("large.tsv", new ByteArrayInputStream(large), large.length));
+      assertEquals(4, archive.add("d.tsv", new ByteArrayInputStream(contents[3]), 1000));
+    }
+
+    final List<Path> archives = digest.getArchives();
+    assertEquals(4, archives.size());
+    assertEquals("digest.zip", archives.get(0).getFileName().toString());
+    assertEquals("digest_4.zip", archives.get(3).getFileName().toString());
+    try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archives.get(0)))) {
+      assertEquals("a.tsv", zip.getNextEntry().getName());
+      assertArrayEquals(contents[0], zip.readAllBytes());
+      assertEquals("b.tsv", zip.getNextEntry().getName());
+      assertArrayEquals(contents[1], zip.readAllBytes());
+      assertNull(zip.getNextEntry());
+    }
+    try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archives.get(2)))) {
+      assertEquals("large.tsv", zip.getNextEntry().getName());
+      assertArrayEquals(large, zip.readAllBytes());
+      assertNull(zip.getNextEntry());
+    }
+  }
+
 }